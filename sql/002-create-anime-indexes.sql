@@ -0,0 +1,2 @@
+CREATE INDEX idx_anime_genre ON anime (genre);
+CREATE INDEX idx_anime_name ON anime (name);
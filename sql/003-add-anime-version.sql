@@ -0,0 +1,2 @@
+ALTER TABLE anime
+    ADD COLUMN version int unsigned NOT NULL DEFAULT 1;
@@ -0,0 +1,12 @@
+-- AnimeServiceを通した登録・更新・削除を同じトランザクションで追記する変更履歴
+CREATE TABLE anime_outbox
+(
+    seq        bigint unsigned AUTO_INCREMENT,
+    type       VARCHAR(16)  NOT NULL,
+    anime_id   int unsigned NOT NULL,
+    name       VARCHAR(100),
+    genre      VARCHAR(100),
+    version    int unsigned,
+    created_at DATETIME(3)  NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (seq)
+);
@@ -0,0 +1,2 @@
+-- genreと名前の前方一致を組み合わせた検索を(genre, name, id)の順に読むためのインデックス
+CREATE INDEX idx_anime_genre_name ON anime (genre, name);
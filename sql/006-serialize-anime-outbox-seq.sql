@@ -0,0 +1,18 @@
+-- seqをAUTO_INCREMENTで採番するとコミット順と一致せず、ロールバックで欠番ができる
+-- 書き込みのトランザクションの最後にこの行を更新して採番し、行ロックをコミットまで持つことで、seqをコミット順に欠けなく振る
+CREATE TABLE anime_outbox_sequence
+(
+    id       tinyint unsigned NOT NULL,
+    last_seq bigint unsigned  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO anime_outbox_sequence (id, last_seq)
+SELECT 1, COALESCE(MAX(seq), 0)
+FROM anime_outbox;
+
+ALTER TABLE anime_outbox
+    MODIFY seq bigint unsigned NOT NULL;
+
+-- 保存期間を過ぎた変更履歴の削除用
+CREATE INDEX idx_anime_outbox_created_at ON anime_outbox (created_at);
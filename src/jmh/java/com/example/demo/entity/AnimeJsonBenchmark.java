@@ -0,0 +1,58 @@
+package com.example.demo.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+public class AnimeJsonBenchmark {
+
+    private static final TypeReference<List<Anime>> ANIME_LIST = new TypeReference<>() {
+    };
+
+    @Param({"100", "1000"})
+    int size;
+
+    ObjectMapper objectMapper;
+
+    Anime anime;
+
+    List<Anime> animeList;
+
+    byte[] animeListJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        anime = new Anime(1, "鬼滅の刃", "ダークファンタジー");
+        animeList = IntStream.rangeClosed(1, size)
+                .mapToObj(id -> new Anime(id, "SPY×FAMILY " + id, "ホームコメディ"))
+                .toList();
+        animeListJson = objectMapper.writeValueAsBytes(animeList);
+    }
+
+    @Benchmark
+    public byte[] serializeAnime() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(anime);
+    }
+
+    @Benchmark
+    public byte[] serializeAnimeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(animeList);
+    }
+
+    @Benchmark
+    public List<Anime> deserializeAnimeList() throws IOException {
+        return objectMapper.readValue(animeListJson, ANIME_LIST);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.entity;
+
+import com.example.demo.form.AnimeForm;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Acceptで選べる形式ごとのエンコード・デコードのスループット。ペイロードのサイズはセットアップ時に標準出力に出す
+@State(Scope.Benchmark)
+public class AnimeWireFormatBenchmark {
+
+    private static final TypeReference<List<Anime>> ANIME_LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"100", "1000"})
+    int size;
+
+    ObjectMapper objectMapper;
+
+    List<Anime> animeList;
+
+    byte[] animeListBytes;
+
+    byte[] animeFormBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        animeList = IntStream.rangeClosed(1, size)
+                .mapToObj(id -> new Anime(id, "SPY×FAMILY " + id, "ホームコメディ"))
+                .toList();
+        animeListBytes = objectMapper.writeValueAsBytes(animeList);
+        animeFormBytes = objectMapper.writeValueAsBytes(new AnimeForm("鬼滅の刃", "ダークファンタジー"));
+        System.out.printf("%n%s payload bytes: list(%d)=%d form=%d%n", format, size, animeListBytes.length, animeFormBytes.length);
+    }
+
+    @Benchmark
+    public byte[] encodeAnimeList() throws IOException {
+        return objectMapper.writeValueAsBytes(animeList);
+    }
+
+    @Benchmark
+    public List<Anime> decodeAnimeList() throws IOException {
+        return objectMapper.readValue(animeListBytes, ANIME_LIST);
+    }
+
+    @Benchmark
+    public AnimeForm decodeAnimeForm() throws IOException {
+        return objectMapper.readValue(animeFormBytes, AnimeForm.class);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.form;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Collections;
+import java.util.Set;
+
+@State(Scope.Benchmark)
+public class AnimeFormValidationBenchmark {
+
+    ValidatorFactory validatorFactory;
+
+    Validator validator;
+
+    AnimeForm validForm;
+
+    AnimeForm invalidForm;
+
+    AnimeBatchForm batchForm;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validForm = new AnimeForm("Your Name", "Romantic Fantasy");
+        invalidForm = new AnimeForm("", null);
+        batchForm = new AnimeBatchForm(Collections.nCopies(1000, validForm));
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<AnimeForm>> validateValidForm() {
+        return validator.validate(validForm);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<AnimeForm>> validateInvalidForm() {
+        return validator.validate(invalidForm);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<AnimeBatchForm>> validateBatchForm() {
+        return validator.validate(batchForm);
+    }
+}
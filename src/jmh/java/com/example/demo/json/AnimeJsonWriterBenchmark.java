@@ -0,0 +1,79 @@
+package com.example.demo.json;
+
+import com.example.demo.entity.Anime;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// レスポンスのOutputStreamへの書き出しを、中身を捨てるOutputStreamで比較する
+@State(Scope.Benchmark)
+public class AnimeJsonWriterBenchmark {
+
+    @Param({"100", "1000"})
+    int size;
+
+    ObjectMapper objectMapper;
+
+    Anime anime;
+
+    List<Anime> animeList;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        anime = new Anime(1, "鬼滅の刃", "ダークファンタジー");
+        animeList = IntStream.rangeClosed(1, size)
+                .mapToObj(id -> new Anime(id, "SPY×FAMILY " + id, "ホームコメディ"))
+                .toList();
+    }
+
+    @Benchmark
+    public void jacksonAnime(Blackhole blackhole) throws IOException {
+        objectMapper.writeValue(new BlackholeOutputStream(blackhole), anime);
+    }
+
+    @Benchmark
+    public void writerAnime(Blackhole blackhole) throws IOException {
+        AnimeJsonWriter.write(anime, new BlackholeOutputStream(blackhole));
+    }
+
+    @Benchmark
+    public void jacksonAnimeList(Blackhole blackhole) throws IOException {
+        objectMapper.writeValue(new BlackholeOutputStream(blackhole), animeList);
+    }
+
+    @Benchmark
+    public void writerAnimeList(Blackhole blackhole) throws IOException {
+        AnimeJsonWriter.write(animeList, new BlackholeOutputStream(blackhole));
+    }
+
+    private static final class BlackholeOutputStream extends OutputStream {
+
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            blackhole.consume(bytes);
+            blackhole.consume(length);
+        }
+    }
+}
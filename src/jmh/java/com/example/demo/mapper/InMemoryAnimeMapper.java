@@ -0,0 +1,115 @@
+package com.example.demo.mapper;
+
+import com.example.demo.entity.Anime;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InMemoryAnimeMapper implements AnimeMapper {
+
+    private final ConcurrentNavigableMap<Integer, Anime> rows = new ConcurrentSkipListMap<>();
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public InMemoryAnimeMapper(int size) {
+        for (int i = 0; i < size; i++) {
+            int id = sequence.incrementAndGet();
+            rows.put(id, new Anime(id, "Anime " + id, id % 2 == 0 ? "Action" : "Comedy"));
+        }
+    }
+
+    @Override
+    public List<Anime> findAll() {
+        return new ArrayList<>(rows.values());
+    }
+
+    @Override
+    public List<Anime> findAllAfter(Integer after, int limit) {
+        ConcurrentNavigableMap<Integer, Anime> tail = after == null ? rows : rows.tailMap(after, false);
+        return tail.values().stream().limit(limit).toList();
+    }
+
+    @Override
+    public List<Anime> search(String genre, String namePrefix, String afterName, Integer after, int limit) {
+        if (namePrefix == null) {
+            ConcurrentNavigableMap<Integer, Anime> tail = after == null ? rows : rows.tailMap(after, false);
+            return tail.values().stream()
+                    .filter(anime -> genre == null || genre.equals(anime.getGenre()))
+                    .limit(limit)
+                    .toList();
+        }
+        String prefix = unescapeLikePattern(namePrefix);
+        Comparator<Anime> byNameAndId = Comparator.comparing(Anime::getName).thenComparing(Anime::getId);
+        Anime cursor = afterName == null || after == null ? null : new Anime(after, afterName, null);
+        return rows.values().stream()
+                .filter(anime -> genre == null || genre.equals(anime.getGenre()))
+                .filter(anime -> anime.getName().startsWith(prefix))
+                .filter(anime -> cursor == null || byNameAndId.compare(anime, cursor) > 0)
+                .sorted(byNameAndId)
+                .limit(limit)
+                .toList();
+    }
+
+    // AnimeServiceがLIKE用にエスケープした前方一致の文字列を元に戻す
+    private static String unescapeLikePattern(String pattern) {
+        StringBuilder sb = new StringBuilder(pattern.length());
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\' && i + 1 < pattern.length()) {
+                c = pattern.charAt(++i);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void streamAll(ResultHandler<Anime> handler) {
+        DefaultResultContext<Anime> context = new DefaultResultContext<>();
+        for (Anime anime : rows.values()) {
+            context.nextResultObject(anime);
+            handler.handleResult(context);
+        }
+    }
+
+    @Override
+    public Optional<Anime> findById(Integer id) {
+        return Optional.ofNullable(rows.get(id));
+    }
+
+    @Override
+    public List<Anime> findByIds(Collection<Integer> ids) {
+        return ids.stream().map(rows::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public void createAnime(Anime anime) {
+        int id = sequence.incrementAndGet();
+        rows.put(id, new Anime(id, anime.getName(), anime.getGenre()));
+    }
+
+    @Override
+    public int createAnimeList(List<Anime> animeList) {
+        animeList.forEach(this::createAnime);
+        return animeList.size();
+    }
+
+    @Override
+    public int updateAnime(Anime anime) {
+        return rows.replace(anime.getId(), anime) == null ? 0 : 1;
+    }
+
+    @Override
+    public int deleteAnime(Integer id) {
+        return rows.remove(id) == null ? 0 : 1;
+    }
+}
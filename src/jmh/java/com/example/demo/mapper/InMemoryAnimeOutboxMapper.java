@@ -0,0 +1,46 @@
+package com.example.demo.mapper;
+
+import com.example.demo.entity.AnimeChange;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 採番と追記の件数だけを扱う。ベンチマークでは変更履歴を読まない
+public class InMemoryAnimeOutboxMapper implements AnimeOutboxMapper {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // LAST_INSERT_IDと同じく、採番した呼び出し元のスレッドにだけ見える
+    private final ThreadLocal<Long> reserved = ThreadLocal.withInitial(() -> 0L);
+
+    @Override
+    public int reserveSeq(int count) {
+        reserved.set(sequence.addAndGet(count));
+        return 1;
+    }
+
+    @Override
+    public long findReservedSeq() {
+        return reserved.get();
+    }
+
+    @Override
+    public int insertAll(List<AnimeChange> changes) {
+        return changes.size();
+    }
+
+    @Override
+    public long findLastSeq() {
+        return sequence.get();
+    }
+
+    @Override
+    public List<AnimeChange> findAfter(long after, Long upTo, int limit) {
+        return List.of();
+    }
+
+    @Override
+    public int deleteOlderThan(long retentionSeconds, int limit) {
+        return 0;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+// 漢字とひらがなを混ぜた名前をsize件登録したインデックスで検索する。1件あたりの時間はスループットの逆数
+@State(Scope.Benchmark)
+@Fork(jvmArgsAppend = "-Xmx8g")
+public class AnimeSearchIndexBenchmark {
+
+    private static final String KANJI = "鬼滅刃無限列車編進撃巨人呪術廻戦鋼錬金術師銀魂涼宮春日憂鬱君名天気子物語化猫傷偽魔法少女";
+
+    private static final String KANA = "のをとにがはでもへやかなしいうえおきくけこさすせそたちつてなぬねまみむめよらりるれろわん";
+
+    @Param({"1000000"})
+    int size;
+
+    AnimeSearchIndex index;
+
+    int nextId;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        index = new AnimeSearchIndex();
+        for (int id = 1; id <= size; id++) {
+            index.put(new Anime(id, name(random), "genre"));
+        }
+        nextId = size + 1;
+    }
+
+    private static String name(SplittableRandom random) {
+        int length = 4 + random.nextInt(9);
+        StringBuilder name = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            String chars = random.nextInt(3) == 0 ? KANA : KANJI;
+            name.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return name.toString();
+    }
+
+    @Benchmark
+    public List<Anime> searchBigram() {
+        return index.search("鬼滅", 20);
+    }
+
+    @Benchmark
+    public List<Anime> searchUnigram() {
+        return index.search("鬼", 20);
+    }
+
+    @Benchmark
+    public List<Anime> searchLongQuery() {
+        return index.search("進撃の巨人 無限列車", 20);
+    }
+
+    // 同じidを上書きするので、計測中にインデックスの件数は変わらない
+    @Benchmark
+    public void put() {
+        index.put(new Anime(nextId, "鋼の錬金術師", "genre"));
+    }
+}
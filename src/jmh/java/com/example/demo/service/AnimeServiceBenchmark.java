@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import com.example.demo.config.AnimeBatchLoaderProperties;
+import com.example.demo.config.AnimeCacheProperties;
+import com.example.demo.config.AnimeSingleFlightProperties;
+import com.example.demo.entity.Anime;
+import com.example.demo.mapper.InMemoryAnimeMapper;
+import com.example.demo.mapper.InMemoryAnimeOutboxMapper;
+import com.example.demo.response.AnimePage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class AnimeServiceBenchmark {
+
+    @Param({"1000"})
+    int size;
+
+    AnimeService animeService;
+
+    @Setup
+    public void setUp() {
+        InMemoryAnimeMapper animeMapper = new InMemoryAnimeMapper(size);
+        AnimeBatchLoader batchLoader = new AnimeBatchLoader(animeMapper, new AnimeBatchLoaderProperties(), new SimpleMeterRegistry());
+        animeService = new AnimeService(animeMapper, new AnimeCache(new AnimeCacheProperties()), event -> {
+        }, new InMemoryAnimeOutboxMapper(), batchLoader, new AnimeSingleFlightProperties());
+        animeService.getAnime(1);
+    }
+
+    @Benchmark
+    public Anime getAnime() {
+        return animeService.getAnime(1);
+    }
+
+    @Benchmark
+    public List<Anime> getAllAnime() {
+        return animeService.getAllAnime(animeService.lastChangeSeq());
+    }
+
+    @Benchmark
+    public AnimePage getAnimePage() {
+        return animeService.getAnimePage(size / 2, 100);
+    }
+
+    @Benchmark
+    public void exportAnime(Blackhole blackhole) {
+        animeService.exportAnime(blackhole::consume);
+    }
+
+    @Benchmark
+    public void updateAnime() {
+        animeService.updateAnime(1, "Your Name", "Romantic Fantasy", null);
+    }
+}
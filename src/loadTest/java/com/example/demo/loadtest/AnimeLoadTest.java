@@ -0,0 +1,313 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.UnitTestTutorialApplication;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class AnimeLoadTest {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final int SEED_CHUNK_SIZE = 1000;
+
+    private static final String SEED_GENRE = "loadtest";
+
+    private static final int CLEANUP_CONCURRENCY = 16;
+
+    private final URI baseUri;
+
+    private final ObjectMapper objectMapper;
+
+    private final HttpClient httpClient;
+
+    private final AtomicLong createdCount = new AtomicLong();
+
+    // 削除はこの中のidだけを対象にし、参照と更新に使うidは消さない
+    private final Queue<Integer> deletableIds = new ConcurrentLinkedQueue<>();
+
+    public AnimeLoadTest(URI baseUri, ObjectMapper objectMapper) {
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 10));
+        int concurrency = Integer.getInteger("loadtest.concurrency", 64);
+        int seedSize = Integer.getInteger("loadtest.seedSize", 10_000);
+        int deletableSize = Integer.getInteger("loadtest.deletableSize", 10_000);
+        double tolerancePercent = Double.parseDouble(System.getProperty("loadtest.tolerance", "10"));
+        double maxErrorRatePercent = Double.parseDouble(System.getProperty("loadtest.maxErrorRate", "0"));
+        boolean updateBaseline = Boolean.getBoolean("loadtest.updateBaseline");
+        Path baselinePath = Path.of(System.getProperty("loadtest.baseline", "config/loadtest/baseline.json"));
+        Path reportPath = Path.of(System.getProperty("loadtest.report", "build/reports/loadtest/results.json"));
+        List<Workload> workloads = Arrays.stream(System.getProperty("loadtest.workloads", "read-heavy,write-heavy,mixed").split(","))
+                .map(String::trim)
+                .map(Workload::fromLabel)
+                .toList();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        String compareAppArgs = System.getProperty("loadtest.compareAppArgs");
+        if (compareAppArgs != null) {
+            Map<String, WorkloadResult> reference = runAgainstApplication(appArgs(System.getProperty("loadtest.appArgs", "")),
+                    workloads, seedSize, deletableSize, concurrency, warmup, duration, objectMapper);
+            Map<String, WorkloadResult> candidate = runAgainstApplication(appArgs(compareAppArgs),
+                    workloads, seedSize, deletableSize, concurrency, warmup, duration, objectMapper);
+            System.out.println("candidate (" + compareAppArgs + ") relative to reference:");
+            for (Map.Entry<String, WorkloadResult> entry : reference.entrySet()) {
+                WorkloadResult candidateResult = candidate.get(entry.getKey());
+                System.out.printf("%-12s req/s x%.2f  p50 x%.2f  p99 x%.2f  p999 x%.2f%n", entry.getKey(),
+                        candidateResult.requestsPerSecond() / entry.getValue().requestsPerSecond(),
+                        candidateResult.p50Millis() / entry.getValue().p50Millis(),
+                        candidateResult.p99Millis() / entry.getValue().p99Millis(),
+                        candidateResult.p999Millis() / entry.getValue().p999Millis());
+            }
+            Files.createDirectories(reportPath.toAbsolutePath().getParent());
+            objectMapper.writerWithDefaultPrettyPrinter()
+                    .writeValue(reportPath.toFile(), Map.of("reference", reference, "candidate", candidate));
+            System.exit(0);
+        }
+
+        Map<String, WorkloadResult> results = runAgainstApplication(appArgs(System.getProperty("loadtest.appArgs", "")),
+                workloads, seedSize, deletableSize, concurrency, warmup, duration, objectMapper);
+
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), results);
+
+        if (updateBaseline) {
+            Files.createDirectories(baselinePath.toAbsolutePath().getParent());
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(baselinePath.toFile(), results);
+            System.out.println("baseline written to " + baselinePath);
+            System.exit(0);
+        }
+        // ベースラインがないまま成功させると回帰を検出できないので失敗させる
+        if (!Files.exists(baselinePath)) {
+            System.out.println("baseline " + baselinePath + " not found; run with -Ploadtest.updateBaseline=true to create it");
+            System.exit(1);
+        }
+
+        Map<String, WorkloadResult> baseline = objectMapper.readValue(baselinePath.toFile(),
+                new TypeReference<Map<String, WorkloadResult>>() {
+                });
+        boolean regressed = false;
+        for (Map.Entry<String, WorkloadResult> entry : results.entrySet()) {
+            WorkloadResult baselineResult = baseline.get(entry.getKey());
+            if (baselineResult == null) {
+                System.out.println("REGRESSION " + entry.getKey() + ": no baseline for this workload");
+                regressed = true;
+                continue;
+            }
+            String regression = entry.getValue().regressionAgainst(baselineResult, tolerancePercent, maxErrorRatePercent);
+            if (!regression.isEmpty()) {
+                System.out.println("REGRESSION " + entry.getKey() + ":" + regression);
+                regressed = true;
+            }
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    private static String[] appArgs(String extraArgs) {
+        return Stream.concat(
+                        Stream.of("--server.port=0"),
+                        Arrays.stream(extraArgs.split("\\s+")).filter(arg -> !arg.isBlank()))
+                .toArray(String[]::new);
+    }
+
+    private static Map<String, WorkloadResult> runAgainstApplication(String[] appArgs, List<Workload> workloads, int seedSize,
+                                                                     int deletableSize, int concurrency, Duration warmup,
+                                                                     Duration duration, ObjectMapper objectMapper) throws Exception {
+        Map<String, WorkloadResult> results = new LinkedHashMap<>();
+        try (ConfigurableApplicationContext context = SpringApplication.run(UnitTestTutorialApplication.class, appArgs)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            AnimeLoadTest loadTest = new AnimeLoadTest(URI.create("http://localhost:" + port + "/api/anime"), objectMapper);
+            try {
+                List<Integer> ids = loadTest.seed(seedSize);
+                if (workloads.stream().anyMatch(Workload::deletes)) {
+                    loadTest.deletableIds.addAll(loadTest.seed(deletableSize));
+                }
+                for (Workload workload : workloads) {
+                    loadTest.run(workload, ids, concurrency, warmup);
+                    WorkloadResult result = loadTest.run(workload, ids, concurrency, duration);
+                    results.put(workload.getLabel(), result);
+                    System.out.printf("%-12s %10.1f req/s  p50 %8.2fms  p99 %8.2fms  p999 %8.2fms  requests %d  errors %d%n",
+                            workload.getLabel(), result.requestsPerSecond(), result.p50Millis(), result.p99Millis(),
+                            result.p999Millis(), result.requests(), result.errors());
+                }
+            } finally {
+                System.out.println("deleted " + loadTest.cleanup() + " rows created by the load test");
+            }
+        }
+        return results;
+    }
+
+    public List<Integer> seed(int size) throws IOException, InterruptedException {
+        List<Integer> ids = new ArrayList<>(size);
+        for (int from = 0; from < size; from += SEED_CHUNK_SIZE) {
+            List<Map<String, String>> anime = new ArrayList<>();
+            for (int i = from; i < Math.min(from + SEED_CHUNK_SIZE, size); i++) {
+                anime.add(Map.of("name", "loadtest-seed-" + i, "genre", SEED_GENRE));
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUri + "/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(Map.of("anime", anime))))
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("seeding failed with status " + response.statusCode());
+            }
+            ids.addAll(objectMapper.readValue(response.body(), new TypeReference<List<Integer>>() {
+            }));
+        }
+        return ids;
+    }
+
+    // 試験用データと計測中に登録した行を消す。以前に中断した実行の残りも同じジャンルなので一緒に消える
+    public long cleanup() throws IOException, InterruptedException, ExecutionException {
+        List<Integer> ids = new ArrayList<>();
+        HttpRequest export = HttpRequest.newBuilder(URI.create(baseUri + "/export")).GET().build();
+        HttpResponse<InputStream> response = httpClient.send(export, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("export for cleanup failed with status " + response.statusCode());
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Map<String, Object> anime = objectMapper.readValue(line, new TypeReference<Map<String, Object>>() {
+                });
+                if (SEED_GENRE.equals(anime.get("genre"))) {
+                    ids.add(((Number) anime.get("id")).intValue());
+                }
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(CLEANUP_CONCURRENCY);
+        try {
+            List<Future<HttpResponse<Void>>> futures = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                HttpRequest delete = HttpRequest.newBuilder(URI.create(baseUri + "/" + id)).DELETE().build();
+                futures.add(executor.submit(() -> httpClient.send(delete, HttpResponse.BodyHandlers.discarding())));
+            }
+            for (Future<HttpResponse<Void>> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return ids.size();
+    }
+
+    public WorkloadResult run(Workload workload, List<Integer> ids, int concurrency, Duration duration)
+            throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Future<WorkerResult>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(executor.submit(() -> work(workload, ids, deadline)));
+        }
+        Histogram histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long errors = 0;
+        for (Future<WorkerResult> future : futures) {
+            WorkerResult workerResult = future.get();
+            histogram.add(workerResult.histogram());
+            errors += workerResult.errors();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+        return new WorkloadResult(
+                histogram.getTotalCount() / elapsedSeconds,
+                histogram.getValueAtPercentile(50.0) / 1e6,
+                histogram.getValueAtPercentile(99.0) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getTotalCount(),
+                errors);
+    }
+
+    private WorkerResult work(Workload workload, List<Integer> ids, long deadline) throws InterruptedException {
+        Histogram histogram = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long errors = 0;
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = request(workload.nextOperation(), ids);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) {
+                    errors++;
+                }
+            } catch (IOException e) {
+                errors++;
+            }
+            histogram.recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+        }
+        return new WorkerResult(histogram, errors);
+    }
+
+    private HttpRequest request(Workload.Operation operation, List<Integer> ids) {
+        int id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return switch (operation) {
+            case GET_BY_ID -> HttpRequest.newBuilder(URI.create(baseUri + "/" + id)).GET().build();
+            case GET_PAGE -> HttpRequest.newBuilder(URI.create(baseUri + "?after=" + id + "&limit=100")).GET().build();
+            case CREATE -> HttpRequest.newBuilder(baseUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"loadtest-" + createdCount.incrementAndGet() + "\",\"genre\":\"" + SEED_GENRE + "\"}"))
+                    .build();
+            case UPDATE -> HttpRequest.newBuilder(URI.create(baseUri + "/" + id))
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"loadtest-updated-" + id + "\",\"genre\":\"" + SEED_GENRE + "\"}"))
+                    .build();
+            case DELETE -> deleteRequest(id);
+        };
+    }
+
+    // 削除用のidを使い切ったら参照に置き換える。足りないときはloadtest.deletableSizeを増やす
+    private HttpRequest deleteRequest(int fallbackId) {
+        Integer id = deletableIds.poll();
+        if (id == null) {
+            return HttpRequest.newBuilder(URI.create(baseUri + "/" + fallbackId)).GET().build();
+        }
+        return HttpRequest.newBuilder(URI.create(baseUri + "/" + id)).DELETE().build();
+    }
+
+    private record WorkerResult(Histogram histogram, long errors) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public enum Workload {
+    READ_HEAVY("read-heavy", 90, 5, 0, 5, 0),
+    WRITE_HEAVY("write-heavy", 20, 0, 30, 30, 20),
+    MIXED("mixed", 50, 10, 15, 15, 10),
+    FIND_BY_ID("find-by-id", 100, 0, 0, 0, 0);
+
+    private final String label;
+    private final int getByIdWeight;
+    private final int getPageWeight;
+    private final int createWeight;
+    private final int updateWeight;
+    private final int deleteWeight;
+
+    Workload(String label, int getByIdWeight, int getPageWeight, int createWeight, int updateWeight, int deleteWeight) {
+        this.label = label;
+        this.getByIdWeight = getByIdWeight;
+        this.getPageWeight = getPageWeight;
+        this.createWeight = createWeight;
+        this.updateWeight = updateWeight;
+        this.deleteWeight = deleteWeight;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean deletes() {
+        return deleteWeight > 0;
+    }
+
+    public Operation nextOperation() {
+        int total = getByIdWeight + getPageWeight + createWeight + updateWeight + deleteWeight;
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        if (roll < getByIdWeight) {
+            return Operation.GET_BY_ID;
+        }
+        roll -= getByIdWeight;
+        if (roll < getPageWeight) {
+            return Operation.GET_PAGE;
+        }
+        roll -= getPageWeight;
+        if (roll < createWeight) {
+            return Operation.CREATE;
+        }
+        roll -= createWeight;
+        return roll < updateWeight ? Operation.UPDATE : Operation.DELETE;
+    }
+
+    public static Workload fromLabel(String label) {
+        for (Workload workload : values()) {
+            if (workload.label.equals(label)) {
+                return workload;
+            }
+        }
+        throw new IllegalArgumentException("unknown workload: " + label);
+    }
+
+    public enum Operation {
+        GET_BY_ID, GET_PAGE, CREATE, UPDATE, DELETE
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.loadtest;
+
+public record WorkloadResult(double requestsPerSecond,
+                             double p50Millis,
+                             double p99Millis,
+                             double p999Millis,
+                             long requests,
+                             long errors) {
+
+    public double errorRate() {
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+
+    // 失敗がすぐ返るとレイテンシとスループットは良く見えるので、エラー率も比べる
+    public String regressionAgainst(WorkloadResult baseline, double tolerancePercent, double maxErrorRatePercent) {
+        double ratio = tolerancePercent / 100;
+        StringBuilder regression = new StringBuilder();
+        if (errorRate() > baseline.errorRate() + maxErrorRatePercent / 100) {
+            regression.append(String.format(" errors %d/%d (%.3f%%) > baseline %.3f%% + %.3f%%;", errors, requests,
+                    errorRate() * 100, baseline.errorRate() * 100, maxErrorRatePercent));
+        }
+        if (requestsPerSecond < baseline.requestsPerSecond * (1 - ratio)) {
+            regression.append(String.format(" requests/sec %.1f < baseline %.1f;", requestsPerSecond, baseline.requestsPerSecond));
+        }
+        if (p50Millis > baseline.p50Millis * (1 + ratio)) {
+            regression.append(String.format(" p50 %.2fms > baseline %.2fms;", p50Millis, baseline.p50Millis));
+        }
+        if (p99Millis > baseline.p99Millis * (1 + ratio)) {
+            regression.append(String.format(" p99 %.2fms > baseline %.2fms;", p99Millis, baseline.p99Millis));
+        }
+        if (p999Millis > baseline.p999Millis * (1 + ratio)) {
+            regression.append(String.format(" p999 %.2fms > baseline %.2fms;", p999Millis, baseline.p999Millis));
+        }
+        return regression.toString();
+    }
+}
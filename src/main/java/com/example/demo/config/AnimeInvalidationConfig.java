@@ -0,0 +1,43 @@
+package com.example.demo.config;
+
+import com.example.demo.invalidation.AnimeInvalidationBus;
+import com.example.demo.invalidation.InMemoryAnimeInvalidationBus;
+import com.example.demo.invalidation.RedisAnimeInvalidationBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class AnimeInvalidationConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "anime.invalidation", name = "bus", havingValue = "in-memory", matchIfMissing = true)
+    public AnimeInvalidationBus inMemoryAnimeInvalidationBus() {
+        return new InMemoryAnimeInvalidationBus();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "anime.invalidation", name = "bus", havingValue = "redis")
+    static class Redis {
+
+        @Bean
+        public RedisMessageListenerContainer animeInvalidationListenerContainer(RedisConnectionFactory connectionFactory) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            return container;
+        }
+
+        @Bean
+        public AnimeInvalidationBus redisAnimeInvalidationBus(StringRedisTemplate redisTemplate,
+                                                              RedisMessageListenerContainer animeInvalidationListenerContainer,
+                                                              ObjectMapper objectMapper, AnimeInvalidationProperties properties) {
+            return new RedisAnimeInvalidationBus(redisTemplate, animeInvalidationListenerContainer, objectMapper, properties.getChannel());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "anime.invalidation")
+public class AnimeInvalidationProperties {
+
+    // in-memory または redis
+    private String bus = "in-memory";
+
+    private String channel = "anime:invalidation";
+
+    // バスで届かなかった変更をanime_outboxのリレーから受け取り直す
+    private boolean replayFromOutbox = true;
+
+    public String getBus() {
+        return bus;
+    }
+
+    public void setBus(String bus) {
+        this.bus = bus;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void setChannel(String channel) {
+        this.channel = channel;
+    }
+
+    public boolean isReplayFromOutbox() {
+        return replayFromOutbox;
+    }
+
+    public void setReplayFromOutbox(boolean replayFromOutbox) {
+        this.replayFromOutbox = replayFromOutbox;
+    }
+}
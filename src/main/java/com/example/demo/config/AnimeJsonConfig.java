@@ -0,0 +1,28 @@
+package com.example.demo.config;
+
+import com.example.demo.json.AnimeJsonHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "anime.json", name = "fast-writer", havingValue = "true")
+public class AnimeJsonConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    public AnimeJsonConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new AnimeJsonHttpMessageConverter(objectMapper));
+    }
+}
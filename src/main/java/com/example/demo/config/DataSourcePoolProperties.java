@@ -0,0 +1,58 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "anime.datasource.pool")
+public class DataSourcePoolProperties {
+
+    // 指定した場合は計算せずにこの値を使う
+    private Integer maximumSize;
+
+    private int dbMaxConnections = 151;
+
+    private int reservedConnections = 10;
+
+    private int instances = 1;
+
+    private int effectiveSpindleCount = 1;
+
+    public Integer getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(Integer maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public int getDbMaxConnections() {
+        return dbMaxConnections;
+    }
+
+    public void setDbMaxConnections(int dbMaxConnections) {
+        this.dbMaxConnections = dbMaxConnections;
+    }
+
+    public int getReservedConnections() {
+        return reservedConnections;
+    }
+
+    public void setReservedConnections(int reservedConnections) {
+        this.reservedConnections = reservedConnections;
+    }
+
+    public int getInstances() {
+        return instances;
+    }
+
+    public void setInstances(int instances) {
+        this.instances = instances;
+    }
+
+    public int getEffectiveSpindleCount() {
+        return effectiveSpindleCount;
+    }
+
+    public void setEffectiveSpindleCount(int effectiveSpindleCount) {
+        this.effectiveSpindleCount = effectiveSpindleCount;
+    }
+}
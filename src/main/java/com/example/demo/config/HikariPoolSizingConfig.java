@@ -0,0 +1,39 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("production & !reactive")
+public class HikariPoolSizingConfig {
+
+    @Bean
+    public static BeanPostProcessor hikariPoolSizer(ObjectProvider<DataSourcePoolProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    int size = maximumPoolSize(Runtime.getRuntime().availableProcessors(), properties.getObject());
+                    dataSource.setMaximumPoolSize(size);
+                    dataSource.setMinimumIdle(size);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // HikariCPの推奨式 (コア数 * 2) + 実効スピンドル数 を、DBの最大接続数をインスタンス数で割った値で頭打ちにする
+    static int maximumPoolSize(int availableProcessors, DataSourcePoolProperties properties) {
+        if (properties.getMaximumSize() != null) {
+            return properties.getMaximumSize();
+        }
+        int recommended = availableProcessors * 2 + properties.getEffectiveSpindleCount();
+        int perInstanceLimit = (properties.getDbMaxConnections() - properties.getReservedConnections())
+                / Math.max(properties.getInstances(), 1);
+        return Math.max(Math.min(recommended, perInstanceLimit), 1);
+    }
+}
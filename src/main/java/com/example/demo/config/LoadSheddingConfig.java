@@ -0,0 +1,41 @@
+package com.example.demo.config;
+
+import com.example.demo.ratelimit.AdaptiveConcurrencyLimiter;
+import com.example.demo.ratelimit.LoadSheddingInterceptor;
+import com.example.demo.ratelimit.MapperLatencyInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "anime.load-shedding", name = "enabled", havingValue = "true")
+public class LoadSheddingConfig implements WebMvcConfigurer {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final LoadSheddingProperties properties;
+
+    public LoadSheddingConfig(LoadSheddingProperties properties, MeterRegistry meterRegistry) {
+        this.limiter = new AdaptiveConcurrencyLimiter(properties, meterRegistry);
+        this.properties = properties;
+    }
+
+    // MyBatisの自動設定がInterceptorのBeanを拾ってSqlSessionFactoryに登録する
+    @Bean
+    public MapperLatencyInterceptor mapperLatencyInterceptor() {
+        return new MapperLatencyInterceptor(limiter);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LoadSheddingInterceptor(limiter, Math.max(1, properties.getRetryAfter().toSeconds())))
+                .addPathPatterns("/api/anime", "/api/anime/**")
+                .order(Ordered.HIGHEST_PRECEDENCE + 1);
+    }
+}
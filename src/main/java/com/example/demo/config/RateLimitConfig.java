@@ -0,0 +1,33 @@
+package com.example.demo.config;
+
+import com.example.demo.ratelimit.RateLimitInterceptor;
+import com.example.demo.ratelimit.StreamConcurrencyLimiter;
+import com.example.demo.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "anime.rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimitInterceptor interceptor;
+
+    public RateLimitConfig(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.interceptor = new RateLimitInterceptor(new TokenBucketRateLimiter(properties, meterRegistry),
+                new StreamConcurrencyLimiter(properties, meterRegistry));
+    }
+
+    // 上限を超えたリクエストが同時実行数の枠を使わないよう、負荷制御より先に判定する
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor)
+                .addPathPatterns("/api/anime", "/api/anime/**")
+                .order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
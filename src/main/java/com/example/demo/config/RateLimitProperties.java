@@ -0,0 +1,144 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+import java.time.Duration;
+
+// 0以下の流量は割り算で無限大や負の間隔になり、制限が効かなくなるので起動時に拒否する
+@Validated
+@ConfigurationProperties(prefix = "anime.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled;
+
+    private long maxClients = 100_000;
+
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    @Valid
+    private Limit list = new Limit(2, 10);
+
+    @Valid
+    private Limit query = new Limit(20, 40);
+
+    @Valid
+    private Limit read = new Limit(100, 200);
+
+    @Valid
+    private Limit write = new Limit(10, 20);
+
+    // 変更履歴のストリームは流量ではなく、同時に開いている数で制限する
+    @Positive
+    private int maxStreamsPerClient = 2;
+
+    @Positive
+    private int maxStreams = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxClients() {
+        return maxClients;
+    }
+
+    public void setMaxClients(long maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Limit getList() {
+        return list;
+    }
+
+    public void setList(Limit list) {
+        this.list = list;
+    }
+
+    public Limit getQuery() {
+        return query;
+    }
+
+    public void setQuery(Limit query) {
+        this.query = query;
+    }
+
+    public Limit getRead() {
+        return read;
+    }
+
+    public void setRead(Limit read) {
+        this.read = read;
+    }
+
+    public Limit getWrite() {
+        return write;
+    }
+
+    public void setWrite(Limit write) {
+        this.write = write;
+    }
+
+    public int getMaxStreamsPerClient() {
+        return maxStreamsPerClient;
+    }
+
+    public void setMaxStreamsPerClient(int maxStreamsPerClient) {
+        this.maxStreamsPerClient = maxStreamsPerClient;
+    }
+
+    public int getMaxStreams() {
+        return maxStreams;
+    }
+
+    public void setMaxStreams(int maxStreams) {
+        this.maxStreams = maxStreams;
+    }
+
+    public static class Limit {
+
+        @Positive
+        private double permitsPerSecond;
+
+        @Positive
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+
+        public void setPermitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+}
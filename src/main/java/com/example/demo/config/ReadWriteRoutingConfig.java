@@ -0,0 +1,104 @@
+package com.example.demo.config;
+
+import com.example.demo.datasource.ReadWriteRoutingDataSource;
+import com.example.demo.datasource.ReadWriteRoutingInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "anime.datasource.routing", name = "enabled", havingValue = "true")
+public class ReadWriteRoutingConfig {
+
+    static final String REPLICA = "replica";
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // レプリカのプールもBeanとして登録し、プライマリと同じくプールサイズの調整とメトリクスの対象にする
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor replicaDataSourceRegistrar(Environment environment) {
+        return new BeanDefinitionRegistryPostProcessor() {
+            @Override
+            public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+                Binder binder = Binder.get(environment);
+                ReadWriteRoutingProperties properties = binder.bind("anime.datasource.routing", ReadWriteRoutingProperties.class)
+                        .orElseGet(ReadWriteRoutingProperties::new);
+                for (int i = 0; i < properties.getReplicas().size(); i++) {
+                    int index = i;
+                    RootBeanDefinition definition = new RootBeanDefinition(HikariDataSource.class,
+                            () -> replicaDataSource(binder, properties, index));
+                    definition.addQualifier(new AutowireCandidateQualifier(Qualifier.class, REPLICA));
+                    definition.setDestroyMethodName(AbstractBeanDefinition.INFER_METHOD);
+                    registry.registerBeanDefinition("replicaDataSource" + index, definition);
+                }
+            }
+
+            @Override
+            public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+            }
+        };
+    }
+
+    // 接続先以外はspring.datasource.hikariの設定を引き継ぎ、接続の待ち時間だけ短くする
+    static HikariDataSource replicaDataSource(Binder binder, ReadWriteRoutingProperties properties, int index) {
+        ReadWriteRoutingProperties.Replica replica = properties.getReplicas().get(index);
+        HikariDataSource dataSource = new HikariDataSource();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(Objects.requireNonNullElse(dataSource.getPoolName(), "HikariPool") + "-replica-" + index);
+        dataSource.setDriverClassName(binder.bind("spring.datasource.driver-class-name", String.class)
+                .orElseGet(() -> DatabaseDriver.fromJdbcUrl(replica.getUrl()).getDriverClassName()));
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername());
+        dataSource.setPassword(replica.getPassword());
+        if (replica.getMaximumPoolSize() != null) {
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        }
+        dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+        dataSource.setReadOnly(true);
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public ReadWriteRoutingDataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                                 @Qualifier(REPLICA) List<HikariDataSource> replicaDataSources,
+                                                 ReadWriteRoutingProperties properties) {
+        List<DataSource> replicas = new ArrayList<>(replicaDataSources);
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(primaryDataSource, replicas,
+                properties.getHealthCheckTimeout());
+        dataSource.startHealthChecks(properties.getHealthCheckInterval());
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingInterceptor readWriteRoutingInterceptor() {
+        return new ReadWriteRoutingInterceptor();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "anime.server", name = "virtual-threads", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public VirtualThreadProtocolHandlerCustomizer virtualThreadProtocolHandlerCustomizer() {
+        return new VirtualThreadProtocolHandlerCustomizer(newVirtualThreadPerTaskExecutor());
+    }
+
+    // sourceCompatibilityは17のままにするため、Java 21のAPIはリフレクションで呼び出す
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("anime.server.virtual-threads requires Java 21 or later", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("failed to create a virtual thread executor", e);
+        }
+    }
+
+    public static class VirtualThreadProtocolHandlerCustomizer
+            implements TomcatProtocolHandlerCustomizer<ProtocolHandler>, DisposableBean {
+
+        private final ExecutorService executor;
+
+        VirtualThreadProtocolHandlerCustomizer(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void customize(ProtocolHandler protocolHandler) {
+            protocolHandler.setExecutor(executor);
+        }
+
+        @Override
+        public void destroy() {
+            executor.shutdown();
+        }
+    }
+}
@@ -1,38 +1,224 @@
 package com.example.demo.controller;
 
 import com.example.demo.entity.Anime;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.exception.PreconditionFailedException;
+import com.example.demo.exception.TooManyRequestsException;
+import com.example.demo.form.AnimeBatchForm;
 import com.example.demo.form.AnimeForm;
+import com.example.demo.response.AnimeChangePage;
+import com.example.demo.response.AnimeMultiGet;
+import com.example.demo.response.AnimePage;
+import com.example.demo.service.AnimeChangeRelay;
+import com.example.demo.service.AnimeListSnapshot;
+import com.example.demo.service.AnimeSearchService;
 import com.example.demo.service.AnimeService;
+import com.example.demo.service.AnimeVersions;
+import com.example.demo.service.AnimeWriteBehindBuffer;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping(path = "/api/anime")
 public class AnimeController {
 
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final AnimeService animeService;
 
-    public AnimeController(AnimeService animeService) {
+    private final AnimeSearchService animeSearchService;
+
+    private final AnimeVersions animeVersions;
+
+    private final AnimeListSnapshot animeListSnapshot;
+
+    private final AnimeWriteBehindBuffer writeBehindBuffer;
+
+    private final AnimeChangeRelay animeChangeRelay;
+
+    private final ObjectMapper objectMapper;
+
+    public AnimeController(AnimeService animeService, AnimeSearchService animeSearchService, AnimeVersions animeVersions,
+                           AnimeListSnapshot animeListSnapshot, AnimeWriteBehindBuffer writeBehindBuffer,
+                           AnimeChangeRelay animeChangeRelay, ObjectMapper objectMapper) {
         this.animeService = animeService;
+        this.animeSearchService = animeSearchService;
+        this.animeVersions = animeVersions;
+        this.animeListSnapshot = animeListSnapshot;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.animeChangeRelay = animeChangeRelay;
+        this.objectMapper = objectMapper;
+    }
+
+    // If-None-Matchがスナップショットと一致したときは304を返す（nullを返すとSpringが304のレスポンスにする）
+    // スナップショットが最新のうちはDBに問い合わせない。JSONのときはスナップショットのバイト列（gzip済みを含む）をそのまま返す
+    // 本文は形式と圧縮で変わるので、ETagは表現ごとに変え、304を含むすべての応答にVaryを付ける
+    @GetMapping(params = {"!after", "!afterName", "!limit", "!genre", "!namePrefix", "!ids"})
+    public ResponseEntity<?> getAllAnime(WebRequest request, HttpServletResponse servletResponse,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        servletResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        AnimeListSnapshot.Snapshot snapshot = animeListSnapshot.get();
+        String representation = representationOf(accept);
+        boolean gzip = representation == null && snapshot.gzip() != null && acceptsGzip(acceptEncoding);
+        if (gzip) {
+            representation = "gzip";
+        }
+        if (request.checkNotModified(AnimeVersions.etag(snapshot.etag(), representation))) {
+            return null;
+        }
+        if (representation != null && !gzip) {
+            return ResponseEntity.ok(snapshot.animeList());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+        }
+        return response.body(snapshot.json());
+    }
+
+    // Acceptで最も優先される形式のサブタイプ（cbor、x-jackson-smileなど）。JSONのときはnullを返す
+    private static String representationOf(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        return mediaTypes.stream()
+                .filter(mediaType -> mediaType.getQualityValue() > 0)
+                .findFirst()
+                .map(mediaType -> mediaType.includes(MediaType.APPLICATION_JSON) ? null : mediaType.getSubtype())
+                .orElse("none");
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 
     @GetMapping
-    public List<Anime> getAllAnime() {
-        return animeService.getAllAnime();
+    public AnimePage getAnimePage(@RequestParam(value = "genre", required = false) String genre,
+                                  @RequestParam(value = "namePrefix", required = false) String namePrefix,
+                                  @RequestParam(value = "afterName", required = false) String afterName,
+                                  @RequestParam(value = "after", required = false) Integer after,
+                                  @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (genre == null && namePrefix == null) {
+            return animeService.getAnimePage(after, limit);
+        }
+        return animeService.searchAnime(genre, namePrefix, afterName, after, limit);
+    }
+
+    // ids=1,2,3 の形式で指定する。存在しないidはmissingIdsに入れて返す
+    @GetMapping(params = "ids")
+    public AnimeMultiGet getAnimeList(@RequestParam("ids") List<Integer> ids) {
+        return animeService.getAnimeList(ids);
+    }
+
+    @GetMapping(path = "search")
+    public List<Anime> searchAnime(@RequestParam("q") String query,
+                                   @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return animeSearchService.searchAnime(query, limit);
+    }
+
+    // 返したnextSinceを次のsinceに指定すると、続きの変更だけを取得できる
+    @GetMapping(path = "changes")
+    public AnimeChangePage getChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                      @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return animeChangeRelay.changesSince(since, limit);
+    }
+
+    // 再接続時はEventSourceが送るLast-Event-IDの続きから配信する
+    @GetMapping(path = "changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(value = "since", required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(animeChangeRelay.getSseTimeout().toMillis());
+        Runnable unsubscribe = animeChangeRelay.subscribe(lastEventId != null ? lastEventId : since, new AnimeChangeRelay.Subscriber() {
+            @Override
+            public void send(AnimeChange change) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getSeq()))
+                        .name("anime-change")
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void complete() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return emitter;
+    }
+
+    @GetMapping(path = "export", produces = APPLICATION_NDJSON_VALUE)
+    public void exportAnime(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            animeService.exportAnime(anime -> {
+                try {
+                    generator.writeObject(anime);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
     @GetMapping(path = "{animeId}")
-    public Anime getAnime(@PathVariable("animeId") Integer id) {
-        return animeService.getAnime(id);
+    public Anime getAnime(@PathVariable("animeId") Integer id, WebRequest request, HttpServletResponse servletResponse,
+                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        servletResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        String representation = representationOf(accept);
+        String etag = animeVersions.etag(id);
+        if (etag != null && request.checkNotModified(AnimeVersions.etag(etag, representation))) {
+            return null;
+        }
+        Anime anime = animeService.getAnime(id);
+        if (etag == null && request.checkNotModified(AnimeVersions.etag(AnimeVersions.etag(anime), representation))) {
+            return null;
+        }
+        return anime;
     }
 
     @PostMapping
     public ResponseEntity<String> registerAnime(@Valid @RequestBody AnimeForm animeForm) {
+        if (writeBehindBuffer.isEnabled()) {
+            if (!writeBehindBuffer.offer(new Anime(animeForm.getName(), animeForm.getGenre()))) {
+                throw new TooManyRequestsException("too many pending registrations");
+            }
+            return ResponseEntity.accepted().body("anime successfully accepted");
+        }
         animeService.registerAnime(animeForm.getName(), animeForm.getGenre());
         URI url = UriComponentsBuilder.fromUriString("http://localhost:8080")
                 .path("api/anime/")
@@ -41,9 +227,23 @@ public class AnimeController {
         return ResponseEntity.created(url).body("anime successfully created");
     }
 
+    @PostMapping(path = "batch")
+    public ResponseEntity<List<Integer>> registerAnimeList(@Valid @RequestBody AnimeBatchForm animeBatchForm) {
+        List<Anime> animeList = animeBatchForm.getAnime().stream()
+                .map(animeForm -> new Anime(animeForm.getName(), animeForm.getGenre()))
+                .toList();
+        List<Integer> ids = animeService.registerAnimeList(animeList);
+        URI url = UriComponentsBuilder.fromUriString("http://localhost:8080")
+                .path("api/anime/")
+                .build()
+                .toUri();
+        return ResponseEntity.created(url).body(ids);
+    }
+
     @PatchMapping(path = "{animeId}")
-    public ResponseEntity<String> updateAnime(@PathVariable("animeId") Integer id, @Valid @RequestBody AnimeForm animeForm) {
-        animeService.updateAnime(id, animeForm.getName(), animeForm.getGenre());
+    public ResponseEntity<String> updateAnime(@PathVariable("animeId") Integer id, @Valid @RequestBody AnimeForm animeForm,
+                                              @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        animeService.updateAnime(id, animeForm.getName(), animeForm.getGenre(), expectedVersion(id, ifMatch));
         URI url = UriComponentsBuilder.fromUriString("http://localhost:8080")
                 .path("api/anime/" + id)
                 .build()
@@ -51,6 +251,17 @@ public class AnimeController {
         return ResponseEntity.created(url).body("anime successfully updated");
     }
 
+    private static Integer expectedVersion(Integer id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Integer version = AnimeVersions.versionOf(id, ifMatch.trim());
+        if (version == null) {
+            throw new PreconditionFailedException("version does not match");
+        }
+        return version;
+    }
+
     @DeleteMapping(path = "{animeId}")
     public ResponseEntity<String> deleteAnime(@PathVariable("animeId") Integer id) {
         animeService.deleteAnime(id);
@@ -0,0 +1,84 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Anime;
+import com.example.demo.exception.PreconditionFailedException;
+import com.example.demo.form.AnimeForm;
+import com.example.demo.service.AnimeVersions;
+import com.example.demo.service.ReactiveAnimeService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.net.URI;
+
+@RestController
+@Profile("reactive")
+@RequestMapping(path = "/api/anime")
+public class ReactiveAnimeController {
+
+    private final ReactiveAnimeService animeService;
+
+    public ReactiveAnimeController(ReactiveAnimeService animeService) {
+        this.animeService = animeService;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Anime> getAllAnime() {
+        return animeService.getAllAnime();
+    }
+
+    // 更新時のIf-Matchに使えるよう、通常のノードと同じETagを返す
+    @GetMapping(path = "{animeId}")
+    public Mono<ResponseEntity<Anime>> getAnime(@PathVariable("animeId") Integer id) {
+        return animeService.getAnime(id)
+                .map(anime -> ResponseEntity.ok().eTag(AnimeVersions.etag(anime)).body(anime));
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<String>> registerAnime(@Valid @RequestBody AnimeForm animeForm) {
+        URI url = UriComponentsBuilder.fromUriString("http://localhost:8080")
+                .path("api/anime/")
+                .build()
+                .toUri();
+        return animeService.registerAnime(animeForm.getName(), animeForm.getGenre())
+                .thenReturn(ResponseEntity.created(url).body("anime successfully created"));
+    }
+
+    @PatchMapping(path = "{animeId}")
+    public Mono<ResponseEntity<String>> updateAnime(@PathVariable("animeId") Integer id, @Valid @RequestBody AnimeForm animeForm,
+                                                    @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Integer expectedVersion = expectedVersion(id, ifMatch);
+        URI url = UriComponentsBuilder.fromUriString("http://localhost:8080")
+                .path("api/anime/" + id)
+                .build()
+                .toUri();
+        return animeService.updateAnime(id, animeForm.getName(), animeForm.getGenre(), expectedVersion)
+                .thenReturn(ResponseEntity.created(url).body("anime successfully updated"));
+    }
+
+    private static Integer expectedVersion(Integer id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Integer version = AnimeVersions.versionOf(id, ifMatch.trim());
+        if (version == null) {
+            throw new PreconditionFailedException("version does not match");
+        }
+        return version;
+    }
+
+    @DeleteMapping(path = "{animeId}")
+    public Mono<ResponseEntity<String>> deleteAnime(@PathVariable("animeId") Integer id) {
+        URI url = UriComponentsBuilder.fromUriString("http://localhost:8080")
+                .path("api/anime/" + id)
+                .build()
+                .toUri();
+        return animeService.deleteAnime(id)
+                .thenReturn(ResponseEntity.created(url).body("anime successfully deleted"));
+    }
+}
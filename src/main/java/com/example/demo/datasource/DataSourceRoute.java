@@ -0,0 +1,49 @@
+package com.example.demo.datasource;
+
+import java.util.function.Supplier;
+
+public enum DataSourceRoute {
+    PRIMARY, REPLICA;
+
+    private static final ThreadLocal<DataSourceRoute> CURRENT = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    public static DataSourceRoute current() {
+        DataSourceRoute route = CURRENT.get();
+        return route == null ? PRIMARY : route;
+    }
+
+    // キャッシュに載せる値の読み込みはプライマリから読む
+    // レプリカの遅延中に読んだ更新前の行は、遅延が解消した後もキャッシュのTTLが切れるまで残るため
+    public static <T> T readFromPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    static boolean isPrimaryOnly() {
+        return PRIMARY_ONLY.get() != null;
+    }
+
+    // 直前の値を返すので、呼び出し側はfinallyでrestoreに渡して元に戻す
+    static DataSourceRoute use(DataSourceRoute route) {
+        DataSourceRoute previous = CURRENT.get();
+        CURRENT.set(route);
+        return previous;
+    }
+
+    static void restore(DataSourceRoute previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
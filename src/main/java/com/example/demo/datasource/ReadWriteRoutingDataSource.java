@@ -0,0 +1,129 @@
+package com.example.demo.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 参照はヘルスチェックに通ったレプリカへラウンドロビンで振り分け、正常なレプリカがなければプライマリに送る
+// レプリカのプールは呼び出し側が所有し、閉じるのも呼び出し側
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    static final String PRIMARY_KEY = "primary";
+
+    private final DataSource primary;
+
+    private final Map<String, DataSource> replicas;
+
+    private final List<String> replicaKeys;
+
+    private final Set<String> unhealthyReplicas = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Duration healthCheckTimeout;
+
+    private ScheduledExecutorService healthChecker;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration healthCheckTimeout) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.put("replica-" + i, replicas.get(i));
+        }
+        this.replicaKeys = new ArrayList<>(this.replicas.keySet());
+        this.healthCheckTimeout = healthCheckTimeout;
+        Map<Object, Object> targets = new HashMap<>(this.replicas);
+        targets.put(PRIMARY_KEY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (DataSourceRoute.current() != DataSourceRoute.REPLICA || replicaKeys.isEmpty()) {
+            return PRIMARY_KEY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicaKeys.size());
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            String key = replicaKeys.get((start + i) % replicaKeys.size());
+            if (!unhealthyReplicas.contains(key)) {
+                return key;
+            }
+        }
+        return PRIMARY_KEY;
+    }
+
+    // 次のヘルスチェックを待たずに、接続できなかったレプリカを外してプライマリから読む
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        DataSource replica = replicas.get(key);
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            log.warn("Failed to connect to {}, reading from the primary until it passes a health check", key, e);
+            unhealthyReplicas.add((String) key);
+            return primary.getConnection();
+        }
+    }
+
+    public void startHealthChecks(Duration interval) {
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void checkReplicas() {
+        replicas.forEach((key, replica) -> {
+            if (isHealthy(replica)) {
+                unhealthyReplicas.remove(key);
+            } else {
+                unhealthyReplicas.add(key);
+            }
+        });
+    }
+
+    private boolean isHealthy(DataSource replica) {
+        try (Connection connection = replica.getConnection()) {
+            return connection.isValid((int) Math.max(healthCheckTimeout.toSeconds(), 1));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    public int healthyReplicaCount() {
+        return replicaKeys.size() - unhealthyReplicas.size();
+    }
+
+    @Override
+    public void destroy() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+    }
+}
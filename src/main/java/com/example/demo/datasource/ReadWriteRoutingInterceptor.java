@@ -0,0 +1,53 @@
+package com.example.demo.datasource;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+// SELECTはレプリカ、それ以外はプライマリへ振り分ける。同じリクエスト内で更新した後の参照と、キャッシュに載せる参照はプライマリから読む
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})
+})
+public class ReadWriteRoutingInterceptor implements Interceptor {
+
+    static final String WRITTEN_ATTRIBUTE = ReadWriteRoutingInterceptor.class.getName() + ".WRITTEN";
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        boolean read = mappedStatement.getSqlCommandType() == SqlCommandType.SELECT;
+        if (!read) {
+            markWritten();
+        }
+        boolean useReplica = read && !DataSourceRoute.isPrimaryOnly() && !writtenInCurrentRequest()
+                && !TransactionSynchronizationManager.isActualTransactionActive();
+        DataSourceRoute previous = DataSourceRoute.use(useReplica ? DataSourceRoute.REPLICA : DataSourceRoute.PRIMARY);
+        try {
+            return invocation.proceed();
+        } finally {
+            DataSourceRoute.restore(previous);
+        }
+    }
+
+    private static void markWritten() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(WRITTEN_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private static boolean writtenInCurrentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(WRITTEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
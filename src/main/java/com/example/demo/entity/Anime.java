@@ -1,11 +1,15 @@
 package com.example.demo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Objects;
 
 public class Anime {
     private Integer id;
     private String name;
     private String genre;
+    // 行のバージョン（ETagに使う）。値としての同一性には含めない
+    private Integer version;
 
     public Anime(Integer id, String name, String genre) {
         this.id = id;
@@ -13,6 +17,11 @@ public class Anime {
         this.genre = genre;
     }
 
+    public Anime(Integer id, String name, String genre, Integer version) {
+        this(id, name, genre);
+        this.version = version;
+    }
+
     public Anime(String name, String genre) {
         this.name = name;
         this.genre = genre;
@@ -33,6 +42,11 @@ public class Anime {
         return genre;
     }
 
+    @JsonIgnore
+    public Integer getVersion() {
+        return version;
+    }
+
     @Override
     public String toString() {
         return "Anime{" +
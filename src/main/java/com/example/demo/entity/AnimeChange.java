@@ -0,0 +1,79 @@
+package com.example.demo.entity;
+
+import java.util.Objects;
+
+// anime_outboxの1行。削除のときはnameとgenreとversionがnull
+public class AnimeChange {
+    private Long seq;
+    private String type;
+    private Integer animeId;
+    private String name;
+    private String genre;
+    private Integer version;
+
+    public AnimeChange(Long seq, String type, Integer animeId, String name, String genre, Integer version) {
+        this.seq = seq;
+        this.type = type;
+        this.animeId = animeId;
+        this.name = name;
+        this.genre = genre;
+        this.version = version;
+    }
+
+    public AnimeChange(String type, Integer animeId, String name, String genre, Integer version) {
+        this(null, type, animeId, name, genre, version);
+    }
+
+    public AnimeChange() {
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Integer getAnimeId() {
+        return animeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getGenre() {
+        return genre;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "AnimeChange{" +
+                "seq=" + seq +
+                ", type='" + type + '\'' +
+                ", animeId=" + animeId +
+                ", name='" + name + '\'' +
+                ", genre='" + genre + '\'' +
+                ", version=" + version +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AnimeChange that = (AnimeChange) o;
+        return Objects.equals(seq, that.seq) && Objects.equals(type, that.type) && Objects.equals(animeId, that.animeId)
+                && Objects.equals(name, that.name) && Objects.equals(genre, that.genre) && Objects.equals(version, that.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(seq, type, animeId, name, genre, version);
+    }
+}
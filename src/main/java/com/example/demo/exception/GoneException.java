@@ -0,0 +1,8 @@
+package com.example.demo.exception;
+
+public class GoneException extends RuntimeException {
+
+    public GoneException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.form;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class AnimeBatchForm {
+
+    @NotEmpty(message = "cannot be empty")
+    @Size(max = 10000, message = "cannot contain more than 10000 items")
+    private List<@NotNull(message = "cannot be null") @Valid AnimeForm> anime;
+
+    public AnimeBatchForm(List<AnimeForm> anime) {
+        this.anime = anime;
+    }
+
+    public AnimeBatchForm() {
+    }
+
+    public List<AnimeForm> getAnime() {
+        return anime;
+    }
+
+    public void setAnime(List<AnimeForm> anime) {
+        this.anime = anime;
+    }
+}
@@ -1,13 +1,17 @@
 package com.example.demo.form;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
 
 public class AnimeForm {
 
+    // カラムはVARCHAR(100)なので、超える値はDBで弾かれる前にここで弾く
     @NotBlank(message = "cannot be empty")
+    @Size(max = 100, message = "cannot be longer than 100 characters")
     private String name;
 
     @NotBlank(message = "cannot be empty")
+    @Size(max = 100, message = "cannot be longer than 100 characters")
     private String genre;
 
     public AnimeForm(String name, String genre) {
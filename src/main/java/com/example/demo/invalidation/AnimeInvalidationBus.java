@@ -0,0 +1,11 @@
+package com.example.demo.invalidation;
+
+import java.util.function.Consumer;
+
+// 自ノードが発行したメッセージも購読者に届くので、受け取る側でoriginを見て除外する
+public interface AnimeInvalidationBus {
+
+    void publish(AnimeInvalidationMessage message);
+
+    void subscribe(Consumer<AnimeInvalidationMessage> subscriber);
+}
@@ -0,0 +1,29 @@
+package com.example.demo.invalidation;
+
+import com.example.demo.entity.Anime;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.service.AnimeChangedEvent;
+
+// 受け取ったノードが検索インデックスやETagのバージョンを更新できるよう、変更後の行をそのまま載せる
+public record AnimeInvalidationMessage(String origin, AnimeChangedEvent.Type type, Integer id,
+                                       String name, String genre, Integer version) {
+
+    public static AnimeInvalidationMessage of(String origin, AnimeChangedEvent event) {
+        Anime anime = event.anime();
+        if (anime == null) {
+            return new AnimeInvalidationMessage(origin, event.type(), event.id(), null, null, null);
+        }
+        return new AnimeInvalidationMessage(origin, event.type(), event.id(), anime.getName(), anime.getGenre(), anime.getVersion());
+    }
+
+    // anime_outboxの行には発行したノードが残らないのでoriginはnull
+    public static AnimeInvalidationMessage of(AnimeChange change) {
+        return new AnimeInvalidationMessage(null, AnimeChangedEvent.Type.valueOf(change.getType()), change.getAnimeId(),
+                change.getName(), change.getGenre(), change.getVersion());
+    }
+
+    public AnimeChangedEvent toEvent() {
+        Anime anime = type == AnimeChangedEvent.Type.DELETED ? null : new Anime(id, name, genre, version);
+        return new AnimeChangedEvent(type, id, anime, true);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.invalidation;
+
+import com.example.demo.config.AnimeInvalidationProperties;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.service.AnimeChangeRelay;
+import com.example.demo.service.AnimeChangedEvent;
+import com.example.demo.service.AnimeService;
+import com.example.demo.service.AnimeStartupScannedEvent;
+import com.example.demo.service.AnimeVersions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+// 自ノードでの変更をバスに流し、他ノードでの変更を受け取ったらキャッシュを破棄してAnimeChangedEventとして発行し直す
+// バスは切断中のメッセージを落としうるので、anime_outboxのリレーからも同じ変更を受け取って適用する
+// リレーは自ノードの変更も遅れて届けるので、AnimeVersionsで反映済みのバージョン（削除を含む）と比べて古い変更は適用しない
+@Component
+@Profile("!reactive")
+public class AnimeInvalidationRelay implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AnimeInvalidationRelay.class);
+
+    private final AnimeInvalidationBus bus;
+
+    private final AnimeService animeService;
+
+    private final AnimeVersions animeVersions;
+
+    private final AnimeChangeRelay changeRelay;
+
+    private final AnimeInvalidationProperties properties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Counter resubscribedCounter;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public AnimeInvalidationRelay(AnimeInvalidationBus bus, AnimeService animeService, AnimeVersions animeVersions,
+                                  AnimeChangeRelay changeRelay, AnimeInvalidationProperties properties,
+                                  ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.bus = bus;
+        this.animeService = animeService;
+        this.animeVersions = animeVersions;
+        this.changeRelay = changeRelay;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.resubscribedCounter = Counter.builder("anime.invalidation.replay.resubscribed")
+                .description("Number of times the outbox replay fell behind the retention period and skipped ahead")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        bus.subscribe(this::onMessage);
+    }
+
+    // 起動時の全件読み込みより後の変更を、読み込みが終わってから適用する。先に適用すると読み込んだ古い行で上書きされる
+    @EventListener
+    public void onStartupScanned(AnimeStartupScannedEvent event) {
+        if (properties.isReplayFromOutbox()) {
+            changeRelay.subscribe(event.seq(), new OutboxReplay());
+        }
+    }
+
+    // 配信に失敗しても更新自体は成功しているので、リクエストは失敗させない
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        try {
+            bus.publish(AnimeInvalidationMessage.of(nodeId, event));
+        } catch (RuntimeException e) {
+            log.warn("failed to publish invalidation for anime {}", event.id(), e);
+        }
+    }
+
+    void onMessage(AnimeInvalidationMessage message) {
+        if (nodeId.equals(message.origin())) {
+            return;
+        }
+        apply(message);
+    }
+
+    // バスとリレーのスレッドから呼ばれるので、反映済みかの判定と適用をまとめて行う
+    private synchronized void apply(AnimeInvalidationMessage message) {
+        if (message.id() != null && animeVersions.isApplied(message.type(), message.id(), message.version())) {
+            return;
+        }
+        if (message.id() != null) {
+            animeService.evict(message.id());
+        }
+        eventPublisher.publishEvent(message.toEvent());
+    }
+
+    private class OutboxReplay implements AnimeChangeRelay.Subscriber {
+
+        @Override
+        public void send(AnimeChange change) {
+            try {
+                apply(AnimeInvalidationMessage.of(change));
+            } catch (RuntimeException e) {
+                log.warn("failed to replay invalidation for anime {}", change.getAnimeId(), e);
+            }
+        }
+
+        // 停止時のほか、保存期間を過ぎるほど遅れたときにも呼ばれる。遅れたときは飛ばした分を諦めて最新の位置から購読し直す
+        @Override
+        public void complete() {
+            if (!changeRelay.isRunning()) {
+                log.info("stopped replaying invalidations from anime_outbox");
+                return;
+            }
+            resubscribedCounter.increment();
+            log.error("outbox replay fell behind anime.changes.retention; skipping ahead, cached rows may be stale until anime.cache.ttl");
+            changeRelay.subscribe(null, new OutboxReplay());
+        }
+    }
+}
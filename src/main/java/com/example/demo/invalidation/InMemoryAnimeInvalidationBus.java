@@ -0,0 +1,21 @@
+package com.example.demo.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// 同じJVM内の購読者にだけ配信する。単一ノードでの運用とテスト用
+public class InMemoryAnimeInvalidationBus implements AnimeInvalidationBus {
+
+    private final List<Consumer<AnimeInvalidationMessage>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(AnimeInvalidationMessage message) {
+        subscribers.forEach(subscriber -> subscriber.accept(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<AnimeInvalidationMessage> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
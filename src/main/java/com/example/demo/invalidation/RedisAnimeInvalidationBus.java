@@ -0,0 +1,57 @@
+package com.example.demo.invalidation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+// Redisのpub/subで全ノードに配信する。購読していなかった間のメッセージは届かないので、
+// その分はAnimeInvalidationRelayがanime_outboxから受け取り直す
+public class RedisAnimeInvalidationBus implements AnimeInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisAnimeInvalidationBus.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final ObjectMapper objectMapper;
+
+    private final ChannelTopic topic;
+
+    public RedisAnimeInvalidationBus(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                                     ObjectMapper objectMapper, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.topic = new ChannelTopic(channel);
+    }
+
+    @Override
+    public void publish(AnimeInvalidationMessage message) {
+        try {
+            redisTemplate.convertAndSend(topic.getTopic(), objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<AnimeInvalidationMessage> subscriber) {
+        listenerContainer.addMessageListener((Message message, byte[] pattern) -> {
+            try {
+                subscriber.accept(objectMapper.readValue(message.getBody(), AnimeInvalidationMessage.class));
+            } catch (IOException e) {
+                log.warn("ignored malformed invalidation message on {}", topic.getTopic(), e);
+            }
+        }, topic);
+    }
+}
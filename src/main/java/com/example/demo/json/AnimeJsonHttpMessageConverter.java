@@ -0,0 +1,64 @@
+package com.example.demo.json;
+
+import com.example.demo.entity.Anime;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+
+// AnimeとCollection<Anime>の書き出しだけを引き受けてAnimeJsonWriterで行う
+// 先頭に登録するので、それ以外の型（byte[]やStringの本文を含む）と読み込みは引き受けず、後ろの既定のコンバーターに任せる
+public class AnimeJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public AnimeJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    static boolean isAnimeOrAnimeCollection(Type type) {
+        if (type instanceof Class<?> clazz) {
+            return Anime.class.isAssignableFrom(clazz);
+        }
+        if (type instanceof ParameterizedType parameterizedType
+                && parameterizedType.getRawType() instanceof Class<?> rawType
+                && Collection.class.isAssignableFrom(rawType)) {
+            Type[] arguments = parameterizedType.getActualTypeArguments();
+            return arguments.length == 1 && arguments[0] == Anime.class;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return Anime.class.isAssignableFrom(clazz) && super.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isAnimeOrAnimeCollection(type != null ? type : clazz) && super.canWrite(type, clazz, mediaType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (value instanceof Anime anime) {
+            AnimeJsonWriter.write(anime, outputMessage.getBody());
+        } else {
+            AnimeJsonWriter.write((Collection<Anime>) value, outputMessage.getBody());
+        }
+    }
+}
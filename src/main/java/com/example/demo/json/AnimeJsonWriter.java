@@ -0,0 +1,216 @@
+package com.example.demo.json;
+
+import com.example.demo.entity.Anime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+
+// Jacksonと同じJSON（{"id":..,"name":"..","genre":".."}）を、使い回すバイト配列にUTF-8で直接書き込む
+public final class AnimeJsonWriter {
+
+    static final int BUFFER_SIZE = 8192;
+
+    private static final int POOL_SIZE = 64;
+
+    private static final ArrayBlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] ID = "{\"id\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NAME = ",\"name\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] GENRE = ",\"genre\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+
+    private byte[] buffer;
+
+    private int position;
+
+    private AnimeJsonWriter(OutputStream out) {
+        this.out = out;
+        byte[] pooled = POOL.poll();
+        this.buffer = pooled == null ? new byte[BUFFER_SIZE] : pooled;
+    }
+
+    public static void write(Anime anime, OutputStream out) throws IOException {
+        AnimeJsonWriter writer = new AnimeJsonWriter(out);
+        try {
+            writer.writeAnime(anime);
+            writer.flush();
+        } finally {
+            writer.release();
+        }
+    }
+
+    public static void write(Collection<Anime> animeList, OutputStream out) throws IOException {
+        AnimeJsonWriter writer = new AnimeJsonWriter(out);
+        try {
+            writer.writeByte('[');
+            boolean first = true;
+            for (Anime anime : animeList) {
+                if (!first) {
+                    writer.writeByte(',');
+                }
+                writer.writeAnime(anime);
+                first = false;
+            }
+            writer.writeByte(']');
+            writer.flush();
+        } finally {
+            writer.release();
+        }
+    }
+
+    private void writeAnime(Anime anime) throws IOException {
+        if (anime == null) {
+            writeBytes(NULL);
+            return;
+        }
+        writeBytes(ID);
+        if (anime.getId() == null) {
+            writeBytes(NULL);
+        } else {
+            writeInt(anime.getId());
+        }
+        writeBytes(NAME);
+        writeString(anime.getName());
+        writeBytes(GENRE);
+        writeString(anime.getGenre());
+        writeByte('}');
+    }
+
+    private void writeInt(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            writeAscii(Integer.toString(value));
+            return;
+        }
+        ensureCapacity(11);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeBytes(NULL);
+            return;
+        }
+        writeByte('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeAsciiChar(c);
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                writeUnicodeEscape(c);
+            } else {
+                ensureCapacity(3);
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeAsciiChar(char c) throws IOException {
+        switch (c) {
+            case '"' -> writeEscape('"');
+            case '\\' -> writeEscape('\\');
+            case '\b' -> writeEscape('b');
+            case '\f' -> writeEscape('f');
+            case '\n' -> writeEscape('n');
+            case '\r' -> writeEscape('r');
+            case '\t' -> writeEscape('t');
+            default -> {
+                if (c < 0x20) {
+                    writeUnicodeEscape(c);
+                } else {
+                    writeByte(c);
+                }
+            }
+        }
+    }
+
+    private void writeEscape(char c) throws IOException {
+        ensureCapacity(2);
+        buffer[position++] = '\\';
+        buffer[position++] = (byte) c;
+    }
+
+    private void writeUnicodeEscape(char c) throws IOException {
+        ensureCapacity(6);
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        buffer[position++] = HEX[(c >> 12) & 0xf];
+        buffer[position++] = HEX[(c >> 8) & 0xf];
+        buffer[position++] = HEX[(c >> 4) & 0xf];
+        buffer[position++] = HEX[c & 0xf];
+    }
+
+    private void writeAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            writeByte(value.charAt(i));
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeByte(int b) throws IOException {
+        ensureCapacity(1);
+        buffer[position++] = (byte) b;
+    }
+
+    private void ensureCapacity(int length) throws IOException {
+        if (position + length > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    private void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        out.flush();
+    }
+
+    private void release() {
+        POOL.offer(buffer);
+        buffer = null;
+    }
+}
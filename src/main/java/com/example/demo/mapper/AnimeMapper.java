@@ -2,7 +2,10 @@ package com.example.demo.mapper;
 
 import com.example.demo.entity.Anime;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,11 +14,25 @@ public interface AnimeMapper {
 
     List<Anime> findAll();
 
+    List<Anime> findAllAfter(@Param("after") Integer after, @Param("limit") int limit);
+
+    List<Anime> search(@Param("genre") String genre,
+                       @Param("namePrefix") String namePrefix,
+                       @Param("afterName") String afterName,
+                       @Param("after") Integer after,
+                       @Param("limit") int limit);
+
+    void streamAll(ResultHandler<Anime> handler);
+
     Optional<Anime> findById(Integer id);
 
+    List<Anime> findByIds(@Param("ids") Collection<Integer> ids);
+
     void createAnime(Anime anime);
 
-    void updateAnime(Anime anime);
+    int createAnimeList(List<Anime> animeList);
+
+    int updateAnime(Anime anime);
 
-    void deleteAnime(Integer id);
+    int deleteAnime(Integer id);
 }
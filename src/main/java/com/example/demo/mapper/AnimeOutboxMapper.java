@@ -0,0 +1,25 @@
+package com.example.demo.mapper;
+
+import com.example.demo.entity.AnimeChange;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface AnimeOutboxMapper {
+
+    // 呼び出したトランザクションがコミットするまで、他の書き込みの採番を待たせる
+    int reserveSeq(@Param("count") int count);
+
+    // 同じ接続で直前にreserveSeqで確保した範囲の最後のseq
+    long findReservedSeq();
+
+    int insertAll(List<AnimeChange> changes);
+
+    long findLastSeq();
+
+    List<AnimeChange> findAfter(@Param("after") long after, @Param("upTo") Long upTo, @Param("limit") int limit);
+
+    int deleteOlderThan(@Param("retentionSeconds") long retentionSeconds, @Param("limit") int limit);
+}
@@ -0,0 +1,40 @@
+package com.example.demo.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+// Bootが登録するactive/idle/pendingに加えて、プールの飽和度（使用中/最大接続数）を公開する
+@Component
+@Profile("!reactive")
+public class HikariSaturationMetrics implements MeterBinder {
+
+    static final String METRIC_NAME = "hikaricp.connections.utilization";
+
+    private final ObjectProvider<HikariDataSource> dataSources;
+
+    public HikariSaturationMetrics(ObjectProvider<HikariDataSource> dataSources) {
+        this.dataSources = dataSources;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        dataSources.orderedStream().forEach(dataSource -> Gauge.builder(METRIC_NAME, dataSource, HikariSaturationMetrics::utilization)
+                .tag("pool", String.valueOf(dataSource.getPoolName()))
+                .description("Ratio of active connections to the maximum pool size")
+                .register(registry));
+    }
+
+    static double utilization(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null || dataSource.getMaximumPoolSize() <= 0) {
+            return 0;
+        }
+        return (double) pool.getActiveConnections() / dataSource.getMaximumPoolSize();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.config.LoadSheddingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// AnimeMapperの遅延から同時実行数の上限を調整する（勾配方式）
+// 直近windowの平均遅延が長期平均のtolerance倍を超えると上限を下げ、下回っていて上限近くまで使われていれば少しずつ上げる
+public class AdaptiveConcurrencyLimiter {
+
+    // 長期平均の指数移動平均の重み（windowが1秒なら約20秒で追従する）
+    private static final double LONG_TERM_WEIGHT = 0.05;
+
+    private static final double SMOOTHING = 0.2;
+
+    private final LoadSheddingProperties properties;
+
+    private final long windowNanos;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final LongAdder sampleNanos = new LongAdder();
+
+    private final LongAdder sampleCount = new LongAdder();
+
+    private final AtomicLong windowStart;
+
+    private final Counter rejected;
+
+    private volatile int limit;
+
+    // windowを締めたスレッドだけが更新する
+    private double longTermNanos;
+
+    public AdaptiveConcurrencyLimiter(LoadSheddingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.windowNanos = properties.getWindow().toNanos();
+        this.windowStart = new AtomicLong(System.nanoTime());
+        this.limit = properties.getInitialLimit();
+        this.rejected = Counter.builder("anime.load_shedding.rejected")
+                .description("Requests rejected because the concurrency limit was reached")
+                .register(meterRegistry);
+        Gauge.builder("anime.load_shedding.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("anime.load_shedding.inflight", inflight, AtomicInteger::get)
+                .description("Requests currently holding a concurrency slot")
+                .register(meterRegistry);
+    }
+
+    public boolean tryAcquire() {
+        if (inflight.incrementAndGet() > limit) {
+            inflight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void onSample(long latencyNanos) {
+        onSample(latencyNanos, System.nanoTime());
+    }
+
+    void onSample(long latencyNanos, long now) {
+        sampleNanos.add(latencyNanos);
+        sampleCount.increment();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            updateLimit();
+        }
+    }
+
+    private synchronized void updateLimit() {
+        long count = sampleCount.sumThenReset();
+        long total = sampleNanos.sumThenReset();
+        if (count == 0) {
+            return;
+        }
+        double shortTermNanos = (double) total / count;
+        if (longTermNanos == 0) {
+            longTermNanos = shortTermNanos;
+        } else {
+            longTermNanos = longTermNanos * (1 - LONG_TERM_WEIGHT) + shortTermNanos * LONG_TERM_WEIGHT;
+        }
+        // 過負荷が長く続くと長期平均も引き上がってしまうので、直近より大きく離れたときは長期平均を戻していく
+        if (longTermNanos / shortTermNanos > 2) {
+            longTermNanos *= 0.95;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getTolerance() * longTermNanos / shortTermNanos));
+        int current = limit;
+        if (gradient >= 1.0 && inflight.get() < current / 2) {
+            return;
+        }
+        double target = current * gradient + Math.sqrt(current);
+        double smoothed = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = (int) Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), Math.round(smoothed)));
+    }
+}
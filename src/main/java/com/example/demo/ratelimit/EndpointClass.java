@@ -0,0 +1,32 @@
+package com.example.demo.ratelimit;
+
+import javax.servlet.http.HttpServletRequest;
+
+// 処理の重さでエンドポイントを分類し、それぞれに別の上限を掛ける
+// LIST：全件を読む（一覧・ページ単位の取得・エクスポート）、QUERY：複数行を読む（複数件取得・検索・変更履歴）、
+// STREAM：開いたままにする変更履歴のストリーム、READ：id単位の参照、WRITE：更新系
+public enum EndpointClass {
+    LIST, QUERY, STREAM, READ, WRITE;
+
+    private static final String BASE_PATH = "/api/anime";
+
+    public static EndpointClass of(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.equals(BASE_PATH)) {
+            return request.getParameter("ids") != null ? QUERY : LIST;
+        }
+        return switch (path.substring(Math.min(path.length(), BASE_PATH.length()))) {
+            case "/export" -> LIST;
+            case "/search", "/changes" -> QUERY;
+            case "/changes/stream" -> STREAM;
+            default -> READ;
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+// id単位の参照（READ）以外を制限する。READは1行しか読まず、キャッシュや304で返せることも多いので落とさない
+// 複数行を読む検索・複数件取得・変更履歴（QUERY）はDBの負荷になるので、一覧や更新系と同じく落とす
+// 非同期処理に切り替わった時点で枠を返すので、開いたままのストリームは同時実行数に数えない
+public class LoadSheddingInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ACQUIRED = LoadSheddingInterceptor.class.getName() + ".ACQUIRED";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final String retryAfterSeconds;
+
+    public LoadSheddingInterceptor(AdaptiveConcurrencyLimiter limiter, long retryAfterSeconds) {
+        this.limiter = limiter;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || EndpointClass.of(request) == EndpointClass.READ) {
+            return true;
+        }
+        if (!limiter.tryAcquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            throw new ServiceUnavailableException("server is overloaded");
+        }
+        request.setAttribute(ACQUIRED, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(ACQUIRED) != null) {
+            request.removeAttribute(ACQUIRED);
+            limiter.release();
+        }
+    }
+}
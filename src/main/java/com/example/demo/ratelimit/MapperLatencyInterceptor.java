@@ -0,0 +1,43 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.mapper.AnimeMapper;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+// AnimeMapperの実行時間をAdaptiveConcurrencyLimiterに渡す。件数に比例して長くなるstreamAllは除く
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})
+})
+public class MapperLatencyInterceptor implements Interceptor {
+
+    static final String NAMESPACE = AnimeMapper.class.getName() + ".";
+
+    static final String EXCLUDED_STATEMENT = NAMESPACE + "streamAll";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public MapperLatencyInterceptor(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        String id = ((MappedStatement) invocation.getArgs()[0]).getId();
+        if (!id.startsWith(NAMESPACE) || id.equals(EXCLUDED_STATEMENT)) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            limiter.onSample(System.nanoTime() - start);
+        }
+    }
+}
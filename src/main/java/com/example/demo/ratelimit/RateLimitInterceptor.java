@@ -0,0 +1,80 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.exception.TooManyRequestsException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+// クライアントは接続元アドレスで区別する。proxyプロファイルではserver.forward-headers-strategyにより、
+// 信頼するプロキシ（server.tomcat.remoteip.internal-proxies）から届いたX-Forwarded-Forの値になる
+// ストリームの枠は、ストリームが閉じて非同期処理から戻った最後のディスパッチのafterCompletionで返す
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String STREAM_CLIENT = RateLimitInterceptor.class.getName() + ".STREAM_CLIENT";
+
+    private final TokenBucketRateLimiter rateLimiter;
+
+    private final StreamConcurrencyLimiter streamLimiter;
+
+    public RateLimitInterceptor(TokenBucketRateLimiter rateLimiter, StreamConcurrencyLimiter streamLimiter) {
+        this.rateLimiter = rateLimiter;
+        this.streamLimiter = streamLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        String client = clientOf(request.getRemoteAddr());
+        EndpointClass endpointClass = EndpointClass.of(request);
+        // いつ枠が空くかはクライアントがストリームを閉じるまで分からないので、Retry-Afterは付けない
+        if (endpointClass == EndpointClass.STREAM) {
+            if (!streamLimiter.tryAcquire(client)) {
+                throw new TooManyRequestsException("too many open change streams");
+            }
+            request.setAttribute(STREAM_CLIENT, client);
+            return true;
+        }
+        long waitNanos = rateLimiter.tryAcquire(client, endpointClass);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            throw new TooManyRequestsException("rate limit exceeded");
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object client = request.getAttribute(STREAM_CLIENT);
+        if (client != null) {
+            request.removeAttribute(STREAM_CLIENT);
+            streamLimiter.release((String) client);
+        }
+    }
+
+    // 1つの契約で大量に払い出されるIPv6アドレスを使い回して上限を逃れたり、バケットを溢れさせたりできないよう/64単位で数える
+    static String clientOf(String remoteAddr) {
+        if (remoteAddr == null || remoteAddr.indexOf(':') < 0) {
+            return remoteAddr;
+        }
+        try {
+            // リテラルのアドレスなので名前解決はしない
+            byte[] address = InetAddress.getByName(remoteAddr).getAddress();
+            if (address.length != 16) {
+                return remoteAddr;
+            }
+            return HexFormat.of().formatHex(address, 0, 8) + "::/64";
+        } catch (UnknownHostException e) {
+            return remoteAddr;
+        }
+    }
+}
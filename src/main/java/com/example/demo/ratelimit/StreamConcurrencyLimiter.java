@@ -0,0 +1,78 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 開いたままの変更履歴のストリームの数を、クライアントごとと全体とで制限する
+public class StreamConcurrencyLimiter {
+
+    private final int maxPerClient;
+
+    private final int maxTotal;
+
+    private final Map<String, Integer> perClient = new ConcurrentHashMap<>();
+
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final Counter allowed;
+
+    private final Counter rejected;
+
+    public StreamConcurrencyLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.maxPerClient = properties.getMaxStreamsPerClient();
+        this.maxTotal = properties.getMaxStreams();
+        this.allowed = Counter.builder("anime.rate_limit.requests")
+                .description("Requests checked against the per-client rate limit")
+                .tag("endpoint", "stream")
+                .tag("outcome", "allowed")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("anime.rate_limit.requests")
+                .description("Requests checked against the per-client rate limit")
+                .tag("endpoint", "stream")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("anime.rate_limit.streams", total, AtomicInteger::get)
+                .description("Number of open change streams")
+                .register(meterRegistry);
+    }
+
+    // 受け付けたときはストリームを閉じるときに必ずreleaseを呼ぶ
+    public boolean tryAcquire(String client) {
+        if (total.incrementAndGet() > maxTotal) {
+            total.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        boolean[] acquired = new boolean[1];
+        perClient.compute(client, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxPerClient) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        if (!acquired[0]) {
+            total.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        allowed.increment();
+        return true;
+    }
+
+    public void release(String client) {
+        perClient.computeIfPresent(client, (key, count) -> count <= 1 ? null : count - 1);
+        total.decrementAndGet();
+    }
+
+    int openStreams(String client) {
+        return perClient.getOrDefault(client, 0);
+    }
+}
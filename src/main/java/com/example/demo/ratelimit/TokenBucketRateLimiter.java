@@ -0,0 +1,93 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// クライアントとエンドポイントの種類ごとのトークンバケット。STREAMは同時に開いている数で制限するので対象外（StreamConcurrencyLimiter）
+// GCRA（次に1件を受け付けられる理論上の時刻を1つのAtomicLongに持つ）で実装し、判定はCASだけで行う
+public class TokenBucketRateLimiter {
+
+    private final Cache<Key, AtomicLong> buckets;
+
+    private final Map<EndpointClass, Rate> rates = new EnumMap<>(EndpointClass.class);
+
+    private final Map<EndpointClass, Counter> allowed = new EnumMap<>(EndpointClass.class);
+
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+
+    public TokenBucketRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+        rates.put(EndpointClass.LIST, new Rate(properties.getList()));
+        rates.put(EndpointClass.QUERY, new Rate(properties.getQuery()));
+        rates.put(EndpointClass.READ, new Rate(properties.getRead()));
+        rates.put(EndpointClass.WRITE, new Rate(properties.getWrite()));
+        for (EndpointClass endpointClass : rates.keySet()) {
+            String tag = endpointClass.name().toLowerCase();
+            allowed.put(endpointClass, Counter.builder("anime.rate_limit.requests")
+                    .description("Requests checked against the per-client rate limit")
+                    .tag("endpoint", tag)
+                    .tag("outcome", "allowed")
+                    .register(meterRegistry));
+            rejected.put(endpointClass, Counter.builder("anime.rate_limit.requests")
+                    .description("Requests checked against the per-client rate limit")
+                    .tag("endpoint", tag)
+                    .tag("outcome", "rejected")
+                    .register(meterRegistry));
+        }
+        Gauge.builder("anime.rate_limit.clients", buckets, Cache::estimatedSize)
+                .description("Number of clients with a tracked bucket")
+                .register(meterRegistry);
+    }
+
+    // 受け付けたときは0、受け付けられないときは次に受け付けられるまでのナノ秒を返す
+    public long tryAcquire(String client, EndpointClass endpointClass) {
+        return tryAcquire(client, endpointClass, System.nanoTime());
+    }
+
+    long tryAcquire(String client, EndpointClass endpointClass, long now) {
+        Rate rate = rates.get(endpointClass);
+        AtomicLong theoreticalArrival = buckets.get(new Key(client, endpointClass), key -> new AtomicLong(now));
+        while (true) {
+            long current = theoreticalArrival.get();
+            long base = Math.max(current, now);
+            long allowedAt = base - rate.burstToleranceNanos;
+            if (now < allowedAt) {
+                rejected.get(endpointClass).increment();
+                return allowedAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, base + rate.intervalNanos)) {
+                allowed.get(endpointClass).increment();
+                return 0;
+            }
+        }
+    }
+
+    private record Key(String client, EndpointClass endpointClass) {
+    }
+
+    private static class Rate {
+        final long intervalNanos;
+
+        // バケットが満杯のときに続けて受け付けられる件数（burst）から1件目を除いた分の猶予
+        final long burstToleranceNanos;
+
+        Rate(RateLimitProperties.Limit limit) {
+            if (limit.getPermitsPerSecond() <= 0 || limit.getBurst() <= 0) {
+                throw new IllegalArgumentException("permits-per-second and burst must be positive");
+            }
+            this.intervalNanos = (long) (1_000_000_000L / limit.getPermitsPerSecond());
+            this.burstToleranceNanos = intervalNanos * Math.max(limit.getBurst() - 1, 0);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.AnimeChange;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+// AnimeOutboxMapperと同じ方法でseqを採番して変更履歴を追記する。どちらも書き込みのトランザクションの中で呼ぶ
+@Repository
+@Profile("reactive")
+public class ReactiveAnimeOutboxRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveAnimeOutboxRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // 採番した範囲の最後のseqを返す
+    public Mono<Long> reserveSeq(int count) {
+        return databaseClient.sql("UPDATE anime_outbox_sequence SET last_seq = LAST_INSERT_ID(last_seq + :count) WHERE id = 1")
+                .bind("count", count)
+                .fetch()
+                .rowsUpdated()
+                .then(databaseClient.sql("SELECT LAST_INSERT_ID()")
+                        .map(row -> ((Number) row.get(0)).longValue())
+                        .one());
+    }
+
+    public Mono<Void> insert(AnimeChange change) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(
+                        "INSERT INTO anime_outbox (seq, type, anime_id, name, genre, version) VALUES (:seq, :type, :animeId, :name, :genre, :version)")
+                .bind("seq", change.getSeq())
+                .bind("type", change.getType())
+                .bind("animeId", change.getAnimeId());
+        spec = change.getName() == null ? spec.bindNull("name", String.class) : spec.bind("name", change.getName());
+        spec = change.getGenre() == null ? spec.bindNull("genre", String.class) : spec.bind("genre", change.getGenre());
+        spec = change.getVersion() == null ? spec.bindNull("version", Integer.class) : spec.bind("version", change.getVersion());
+        return spec.fetch().rowsUpdated().then();
+    }
+}
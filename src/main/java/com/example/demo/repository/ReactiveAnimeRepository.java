@@ -0,0 +1,83 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Anime;
+import io.r2dbc.spi.Row;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@Profile("reactive")
+public class ReactiveAnimeRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveAnimeRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<Anime> findAll() {
+        return databaseClient.sql("SELECT id, name, genre, version FROM anime ORDER BY id")
+                .map(ReactiveAnimeRepository::toAnime)
+                .all();
+    }
+
+    public Mono<Anime> findById(Integer id) {
+        return databaseClient.sql("SELECT id, name, genre, version FROM anime WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveAnimeRepository::toAnime)
+                .one();
+    }
+
+    // 採番されたidを返す。同じ接続から読み戻すのでトランザクションの中で呼ぶ
+    public Mono<Integer> createAnime(Anime anime) {
+        return databaseClient.sql("INSERT INTO anime (name, genre) VALUES (:name, :genre)")
+                .bind("name", anime.getName())
+                .bind("genre", anime.getGenre())
+                .fetch()
+                .rowsUpdated()
+                .then(lastInsertId())
+                .map(Math::toIntExact);
+    }
+
+    // AnimeMapper.updateAnimeと同じく、versionを指定したときは一致する場合だけ更新し、更新後のバージョンをLAST_INSERT_IDに残す
+    public Mono<Integer> updateAnime(Anime anime) {
+        String sql = "UPDATE anime SET name = :name, genre = :genre, version = LAST_INSERT_ID(version + 1) WHERE id = :id";
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(anime.getVersion() == null ? sql : sql + " AND version = :version")
+                .bind("name", anime.getName())
+                .bind("genre", anime.getGenre())
+                .bind("id", anime.getId());
+        if (anime.getVersion() != null) {
+            spec = spec.bind("version", anime.getVersion());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    public Mono<Integer> findUpdatedVersion() {
+        return lastInsertId().map(Math::toIntExact);
+    }
+
+    public Mono<Integer> deleteAnime(Integer id) {
+        return databaseClient.sql("DELETE FROM anime WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // LAST_INSERT_ID()はBIGINT UNSIGNEDなのでドライバの既定の型のまま受け取る
+    private Mono<Long> lastInsertId() {
+        return databaseClient.sql("SELECT LAST_INSERT_ID()")
+                .map(row -> ((Number) row.get(0)).longValue())
+                .one();
+    }
+
+    // INT UNSIGNEDはドライバ上Longとして返される
+    private static Anime toAnime(Row row) {
+        Long id = row.get("id", Long.class);
+        Long version = row.get("version", Long.class);
+        return new Anime(id == null ? null : Math.toIntExact(id), row.get("name", String.class), row.get("genre", String.class),
+                version == null ? null : Math.toIntExact(version));
+    }
+}
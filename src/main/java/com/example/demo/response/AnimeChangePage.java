@@ -0,0 +1,45 @@
+package com.example.demo.response;
+
+import com.example.demo.entity.AnimeChange;
+
+import java.util.List;
+import java.util.Objects;
+
+public class AnimeChangePage {
+    private final List<AnimeChange> changes;
+    private final long nextSince;
+
+    public AnimeChangePage(List<AnimeChange> changes, long nextSince) {
+        this.changes = changes;
+        this.nextSince = nextSince;
+    }
+
+    public List<AnimeChange> getChanges() {
+        return changes;
+    }
+
+    public long getNextSince() {
+        return nextSince;
+    }
+
+    @Override
+    public String toString() {
+        return "AnimeChangePage{" +
+                "changes=" + changes +
+                ", nextSince=" + nextSince +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AnimeChangePage that = (AnimeChangePage) o;
+        return nextSince == that.nextSince && Objects.equals(changes, that.changes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(changes, nextSince);
+    }
+}
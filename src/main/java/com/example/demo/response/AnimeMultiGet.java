@@ -0,0 +1,45 @@
+package com.example.demo.response;
+
+import com.example.demo.entity.Anime;
+
+import java.util.List;
+import java.util.Objects;
+
+public class AnimeMultiGet {
+    private final List<Anime> anime;
+    private final List<Integer> missingIds;
+
+    public AnimeMultiGet(List<Anime> anime, List<Integer> missingIds) {
+        this.anime = anime;
+        this.missingIds = missingIds;
+    }
+
+    public List<Anime> getAnime() {
+        return anime;
+    }
+
+    public List<Integer> getMissingIds() {
+        return missingIds;
+    }
+
+    @Override
+    public String toString() {
+        return "AnimeMultiGet{" +
+                "anime=" + anime +
+                ", missingIds=" + missingIds +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AnimeMultiGet that = (AnimeMultiGet) o;
+        return Objects.equals(anime, that.anime) && Objects.equals(missingIds, that.missingIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(anime, missingIds);
+    }
+}
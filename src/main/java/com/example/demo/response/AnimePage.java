@@ -0,0 +1,60 @@
+package com.example.demo.response;
+
+import com.example.demo.entity.Anime;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Objects;
+
+public class AnimePage {
+    private final List<Anime> anime;
+    private final Integer nextCursor;
+    // 名前の前方一致検索は(name, id)の順に返すので、次のページはnextNameとnextCursorの組で指定する
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String nextName;
+
+    public AnimePage(List<Anime> anime, Integer nextCursor) {
+        this(anime, nextCursor, null);
+    }
+
+    public AnimePage(List<Anime> anime, Integer nextCursor, String nextName) {
+        this.anime = anime;
+        this.nextCursor = nextCursor;
+        this.nextName = nextName;
+    }
+
+    public List<Anime> getAnime() {
+        return anime;
+    }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public String getNextName() {
+        return nextName;
+    }
+
+    @Override
+    public String toString() {
+        return "AnimePage{" +
+                "anime=" + anime +
+                ", nextCursor=" + nextCursor +
+                ", nextName='" + nextName + '\'' +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AnimePage animePage = (AnimePage) o;
+        return Objects.equals(anime, animePage.anime) && Objects.equals(nextCursor, animePage.nextCursor)
+                && Objects.equals(nextName, animePage.nextName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(anime, nextCursor, nextName);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.service;
+
+import com.example.demo.config.AnimeBatchLoaderProperties;
+import com.example.demo.datasource.DataSourceRoute;
+import com.example.demo.entity.Anime;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.mapper.AnimeMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// 短い時間窓の間に届いたid単位の取得要求をまとめ、1回のIN句で取得する（DataLoader方式）
+@Component
+@Profile("!reactive")
+public class AnimeBatchLoader implements DisposableBean {
+
+    private final AnimeMapper animeMapper;
+
+    private final AnimeBatchLoaderProperties properties;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+
+    private Batch pending;
+
+    public AnimeBatchLoader(AnimeMapper animeMapper, AnimeBatchLoaderProperties properties, MeterRegistry meterRegistry) {
+        this.animeMapper = animeMapper;
+        this.properties = properties;
+        this.batchSizeSummary = DistributionSummary.builder("anime.batch_loader.batch.size")
+                .description("Number of ids fetched per coalesced query")
+                .register(meterRegistry);
+        if (properties.isEnabled()) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("anime-batch-loader-");
+            threadFactory.setDaemon(true);
+            this.executor = new ScheduledThreadPoolExecutor(properties.getThreads(), threadFactory);
+        } else {
+            this.executor = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    // 同じ窓の中で同じidが要求された場合は同じFutureを返す
+    public CompletableFuture<Optional<Anime>> load(Integer id) {
+        CompletableFuture<Optional<Anime>> future;
+        Batch full = null;
+        synchronized (lock) {
+            if (pending == null) {
+                Batch batch = new Batch();
+                pending = batch;
+                executor.schedule(() -> dispatch(batch), properties.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+            }
+            future = pending.futures.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (pending.futures.size() >= properties.getMaxBatchSize()) {
+                full = pending;
+                pending = null;
+            }
+        }
+        if (full != null) {
+            Batch batch = full;
+            executor.execute(() -> dispatch(batch));
+        }
+        return future;
+    }
+
+    // 問い合わせが詰まってもリクエストのスレッドを止め続けないよう、待つ時間にtimeoutを設ける
+    public Optional<Anime> get(Integer id) {
+        try {
+            return load(id).get(properties.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("timed out waiting for a batched load");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("interrupted while waiting for a batched load");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void dispatch(Batch batch) {
+        synchronized (lock) {
+            if (batch.dispatched) {
+                return;
+            }
+            batch.dispatched = true;
+            if (pending == batch) {
+                pending = null;
+            }
+        }
+        try {
+            // 結果はAnimeCacheに載るのでプライマリから読む
+            List<Anime> found = DataSourceRoute.readFromPrimary(() -> animeMapper.findByIds(batch.futures.keySet()));
+            Map<Integer, Anime> byId = found.stream().collect(Collectors.toMap(Anime::getId, Function.identity()));
+            batchSizeSummary.record(batch.futures.size());
+            batch.futures.forEach((id, future) -> future.complete(Optional.ofNullable(byId.get(id))));
+        } catch (Throwable e) {
+            // Errorでも待っている要求を取り残さない
+            batch.futures.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static class Batch {
+        // lockの内側でのみ変更する。dispatch後は読み取りのみ
+        final Map<Integer, CompletableFuture<Optional<Anime>>> futures = new HashMap<>();
+
+        boolean dispatched;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import com.example.demo.config.AnimeCacheProperties;
+import com.example.demo.entity.Anime;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+@Component
+@Profile("!reactive")
+public class AnimeCache {
+
+    private static final int GENERATION_STRIPES = 4096;
+
+    private final Cache<Integer, Optional<Anime>> cache;
+
+    // getAllの読み込み中にinvalidateされたidを見分けるための世代。idごとに持つと際限なく増えるのでストライプにする
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final AtomicLong allGeneration = new AtomicLong();
+
+    public AnimeCache(AnimeCacheProperties properties) {
+        long ttlNanos = properties.getTtl().toNanos();
+        long negativeTtlNanos = properties.getNegativeTtl().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<Integer, Optional<Anime>>() {
+                    @Override
+                    public long expireAfterCreate(Integer id, Optional<Anime> anime, long currentTime) {
+                        return anime.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Integer id, Optional<Anime> anime, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, anime, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Integer id, Optional<Anime> anime, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // 同じidのロード中にinvalidateされた場合はロード完了を待ってから削除されるため、古い行が残ることはない
+    public Optional<Anime> get(Integer id, Function<Integer, Optional<Anime>> loader) {
+        return cache.get(id, loader);
+    }
+
+    // キャッシュにないときはnullを返す
+    public Optional<Anime> getIfPresent(Integer id) {
+        return cache.getIfPresent(id);
+    }
+
+    // キャッシュにないidだけをまとめてloaderに渡す。loaderは存在しないidにも空のOptionalを返すこと
+    // 一括読み込みはidごとのロックを取らないので、読み込み中にinvalidateされたidの結果はキャッシュしない
+    public Map<Integer, Optional<Anime>> getAll(Collection<Integer> ids,
+                                                Function<Set<? extends Integer>, Map<Integer, Optional<Anime>>> loader) {
+        Map<Integer, Optional<Anime>> result = new HashMap<>();
+        Map<Integer, Long> missing = new HashMap<>();
+        long allGenerationBefore = allGeneration.get();
+        for (Integer id : ids) {
+            Optional<Anime> cached = cache.getIfPresent(id);
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                missing.put(id, generations.get(stripe(id)));
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        loader.apply(missing.keySet()).forEach((id, anime) -> {
+            result.put(id, anime);
+            Long generationBefore = missing.get(id);
+            if (generationBefore != null) {
+                cache.asMap().compute(id, (key, current) -> {
+                    if (current != null) {
+                        return current;
+                    }
+                    boolean unchanged = generations.get(stripe(key)) == generationBefore
+                            && allGeneration.get() == allGenerationBefore;
+                    return unchanged ? anime : null;
+                });
+            }
+        });
+        return result;
+    }
+
+    // 世代の更新をcomputeの中で行い、getAllの書き込みと同じidについて直列にする
+    public void invalidate(Integer id) {
+        cache.asMap().compute(id, (key, current) -> {
+            generations.incrementAndGet(stripe(key));
+            return null;
+        });
+    }
+
+    // 世代を先に進めるので、getAllが世代を確認した後に書き込んだ値はこの全削除で消える
+    public void invalidateAll() {
+        allGeneration.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private static int stripe(Integer id) {
+        return Math.floorMod(id.hashCode(), GENERATION_STRIPES);
+    }
+}
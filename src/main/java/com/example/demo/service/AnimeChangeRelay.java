@@ -0,0 +1,304 @@
+package com.example.demo.service;
+
+import com.example.demo.config.AnimeChangesProperties;
+import com.example.demo.datasource.DataSourceRoute;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.exception.GoneException;
+import com.example.demo.mapper.AnimeOutboxMapper;
+import com.example.demo.response.AnimeChangePage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+// anime_outboxを一定間隔で読み、seqの順に購読者へ配信する
+// seqはコミット順に欠けなく採番される（AnimeOutboxMapper.reserveSeq）ので、読めた行をそのまま配信してよい
+// 購読者への送信は購読者ごとに別スレッドで行い、送信が詰まった購読者がポーリングと他の購読者を止めないようにする
+@Component
+@Profile("!reactive")
+public class AnimeChangeRelay implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AnimeChangeRelay.class);
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int PURGE_CHUNK_SIZE = 1000;
+
+    private final AnimeOutboxMapper outboxMapper;
+
+    private final AnimeChangesProperties properties;
+
+    private final Executor sender;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final Counter publishedCounter;
+
+    private final Counter purgedCounter;
+
+    // 配信済みの最大のseq。起動後の最初のポーリングまでは-1
+    private volatile long publishedSeq = -1;
+
+    // 直近のポーリングで配信した範囲。追いついている購読者はDBを読まずにこれを送る
+    private volatile Published latest;
+
+    // ポーリングするスレッドからのみ触る
+    private long lastPurgedAt;
+
+    private volatile boolean running;
+
+    private Thread poller;
+
+    public AnimeChangeRelay(AnimeOutboxMapper outboxMapper, AnimeChangesProperties properties, MeterRegistry meterRegistry) {
+        this(outboxMapper, properties, meterRegistry, newSender());
+    }
+
+    AnimeChangeRelay(AnimeOutboxMapper outboxMapper, AnimeChangesProperties properties, MeterRegistry meterRegistry,
+                     Executor sender) {
+        this.outboxMapper = outboxMapper;
+        this.properties = properties;
+        this.sender = sender;
+        this.publishedCounter = Counter.builder("anime.changes.published")
+                .description("Number of outbox rows relayed to subscribers")
+                .register(meterRegistry);
+        this.purgedCounter = Counter.builder("anime.changes.purged")
+                .description("Number of outbox rows deleted after the retention period")
+                .register(meterRegistry);
+        Gauge.builder("anime.changes.subscribers", subscriptions, List::size)
+                .description("Number of connected change stream subscribers")
+                .register(meterRegistry);
+    }
+
+    // 送信中の購読者ごとに高々1スレッドを使う
+    private static ExecutorService newSender() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("anime-change-sender-");
+        threadFactory.setDaemon(true);
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    public Duration getSseTimeout() {
+        return properties.getSseTimeout();
+    }
+
+    // リレーが有効なときは配信済みの範囲だけを返すので、ストリームと同じ順序・同じ内容になる
+    // 配信済みのseqと突き合わせるので、レプリカ振り分けが有効でもプライマリから読む
+    public AnimeChangePage changesSince(long since, int limit) {
+        return DataSourceRoute.readFromPrimary(() -> {
+            long upTo;
+            if (properties.isEnabled()) {
+                upTo = publishedSeq;
+                if (upTo < 0) {
+                    return new AnimeChangePage(List.of(), since);
+                }
+            } else {
+                upTo = outboxMapper.findLastSeq();
+            }
+            List<AnimeChange> changes = outboxMapper.findAfter(since, upTo, Math.min(Math.max(limit, 1), MAX_PAGE_SIZE));
+            checkRetained(since, changes, upTo);
+            long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+            return new AnimeChangePage(changes, nextSince);
+        });
+    }
+
+    // sinceがnullのときは購読した時点以降の変更だけを配信する。戻り値を実行すると購読をやめる
+    public Runnable subscribe(Long since, Subscriber subscriber) {
+        if (since != null) {
+            DataSourceRoute.readFromPrimary(() -> {
+                long lastSeq = outboxMapper.findLastSeq();
+                checkRetained(since, outboxMapper.findAfter(since, lastSeq, 1), lastSeq);
+                return null;
+            });
+        }
+        Subscription subscription = new Subscription(subscriber, since == null ? publishedSeq : since);
+        subscriptions.add(subscription);
+        return () -> subscriptions.remove(subscription);
+    }
+
+    // sinceの直後のseqが読めないときは、その範囲が保存期間を過ぎて削除されている
+    private static void checkRetained(long since, List<AnimeChange> changes, long upTo) {
+        boolean purged = changes.isEmpty() ? since < upTo : changes.get(0).getSeq() != since + 1;
+        if (purged) {
+            throw new GoneException("changes after seq " + since + " are no longer retained");
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        poller = new Thread(this::pollLoop, "anime-change-relay");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    @Override
+    public void stop() {
+        if (poller == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(poller);
+        try {
+            poller.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        poller = null;
+        // 開いたままのストリームがグレースフルシャットダウンを待たせないよう閉じる
+        subscriptions.forEach(subscription -> subscription.subscriber.complete());
+        subscriptions.clear();
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void pollLoop() {
+        long intervalNanos = properties.getPollInterval().toNanos();
+        lastPurgedAt = System.nanoTime();
+        while (running) {
+            try {
+                poll();
+                if (System.nanoTime() - lastPurgedAt >= properties.getPurgeInterval().toNanos()) {
+                    lastPurgedAt = System.nanoTime();
+                    purge();
+                }
+            } catch (RuntimeException e) {
+                log.warn("failed to relay anime_outbox", e);
+            }
+            LockSupport.parkNanos(intervalNanos);
+        }
+    }
+
+    void poll() {
+        long from = DataSourceRoute.readFromPrimary(this::advance);
+        for (Subscription subscription : subscriptions) {
+            if (subscription.cursor < 0) {
+                subscription.cursor = from;
+            }
+            if (subscription.cursor < publishedSeq) {
+                schedule(subscription);
+            }
+        }
+    }
+
+    // 採番と同じくコミット順に読む必要があるのでプライマリから読む。配信前のseqを返す
+    private long advance() {
+        if (publishedSeq < 0) {
+            publishedSeq = outboxMapper.findLastSeq();
+        }
+        long from = publishedSeq;
+        List<AnimeChange> rows = outboxMapper.findAfter(from, null, properties.getBatchSize());
+        if (!rows.isEmpty()) {
+            latest = new Published(from, rows);
+            publishedSeq = rows.get(rows.size() - 1).getSeq();
+            publishedCounter.increment(rows.size());
+        }
+        return from;
+    }
+
+    // 保存期間を過ぎた変更履歴を削除する。複数のノードで実行しても結果は変わらない
+    void purge() {
+        long retentionSeconds = properties.getRetention().toSeconds();
+        int deleted;
+        do {
+            deleted = outboxMapper.deleteOlderThan(retentionSeconds, PURGE_CHUNK_SIZE);
+            purgedCounter.increment(deleted);
+        } while (deleted == PURGE_CHUNK_SIZE);
+    }
+
+    private void schedule(Subscription subscription) {
+        if (subscription.scheduled.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscription));
+        }
+    }
+
+    // 同じ購読者のdrainはscheduledで1つに限るので、cursorを読み書きするのは常に1スレッド
+    private void drain(Subscription subscription) {
+        try {
+            long target = publishedSeq;
+            while (subscription.cursor < target && subscriptions.contains(subscription)) {
+                List<AnimeChange> changes = pending(subscription.cursor, target);
+                if (changes.isEmpty() || changes.get(0).getSeq() != subscription.cursor + 1) {
+                    // 追いつく前に保存期間を過ぎて削除された。再接続すると410が返る
+                    drop(subscription, null);
+                    return;
+                }
+                for (AnimeChange change : changes) {
+                    subscription.subscriber.send(change);
+                    subscription.cursor = change.getSeq();
+                }
+                target = publishedSeq;
+            }
+        } catch (IOException | RuntimeException e) {
+            drop(subscription, e);
+            return;
+        } finally {
+            subscription.scheduled.set(false);
+        }
+        // scheduledを戻す直前に進んだ分を取りこぼさない
+        if (subscription.cursor < publishedSeq && subscriptions.contains(subscription)) {
+            schedule(subscription);
+        }
+    }
+
+    // 遅れている購読者はDBから読み直して追いつかせる（1回の読み込みでbatch-size件まで）
+    private List<AnimeChange> pending(long cursor, long target) {
+        Published published = latest;
+        if (published != null && published.from == cursor) {
+            return published.changes;
+        }
+        return DataSourceRoute.readFromPrimary(() -> outboxMapper.findAfter(cursor, target, properties.getBatchSize()));
+    }
+
+    private void drop(Subscription subscription, Exception e) {
+        log.debug("dropped change stream subscriber", e);
+        subscriptions.remove(subscription);
+        subscription.subscriber.complete();
+    }
+
+    public interface Subscriber {
+
+        void send(AnimeChange change) throws IOException;
+
+        void complete();
+    }
+
+    private record Published(long from, List<AnimeChange> changes) {
+    }
+
+    private static class Subscription {
+        final Subscriber subscriber;
+
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // 最後に送ったseq。-1のときは最初のポーリングで配信済みの位置に合わせる
+        volatile long cursor;
+
+        Subscription(Subscriber subscriber, long cursor) {
+            this.subscriber = subscriber;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+
+// remoteは他のノードでの変更を受け取って発行したイベントであることを表す
+public record AnimeChangedEvent(Type type, Integer id, Anime anime, boolean remote) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static AnimeChangedEvent created(Anime anime) {
+        return new AnimeChangedEvent(Type.CREATED, anime.getId(), anime, false);
+    }
+
+    public static AnimeChangedEvent updated(Anime anime) {
+        return new AnimeChangedEvent(Type.UPDATED, anime.getId(), anime, false);
+    }
+
+    public static AnimeChangedEvent deleted(Integer id) {
+        return new AnimeChangedEvent(Type.DELETED, id, null, false);
+    }
+}
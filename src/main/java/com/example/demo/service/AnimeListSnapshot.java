@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+import com.example.demo.json.AnimeJsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+// 全件取得の一覧とそのJSON・gzipを保持し、AnimeServiceを通した更新があるまで使い回す
+// 一覧を読む直前の変更履歴のseqを一緒に持ち、一覧のETagにする
+@Component
+@Profile("!reactive")
+public class AnimeListSnapshot {
+
+    private final AnimeService animeService;
+
+    private final ObjectMapper objectMapper;
+
+    private final long minCompressedSize;
+
+    private final boolean fastWriter;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+
+    private final SingleFlight<Long, Snapshot> builds;
+
+    public AnimeListSnapshot(AnimeService animeService, ObjectMapper objectMapper,
+                             @Value("${server.compression.min-response-size:2KB}") DataSize minCompressedSize,
+                             @Value("${anime.single-flight.timeout:5s}") Duration buildTimeout,
+                             @Value("${anime.json.fast-writer:false}") boolean fastWriter) {
+        this.animeService = animeService;
+        this.objectMapper = objectMapper;
+        this.minCompressedSize = minCompressedSize.toBytes();
+        this.fastWriter = fastWriter;
+        this.builds = new SingleFlight<>(buildTimeout);
+    }
+
+    public Snapshot get() {
+        Snapshot snapshot = current.get();
+        long currentGeneration = generation.get();
+        if (snapshot != null && snapshot.generation() == currentGeneration) {
+            return snapshot;
+        }
+        // 破棄直後に同時に届いたリクエストでは1つだけが作り直し、残りはその結果を待つ
+        Snapshot built = builds.execute(currentGeneration, () -> build(currentGeneration));
+        current.accumulateAndGet(built, (stored, candidate) ->
+                stored != null && stored.generation() > candidate.generation() ? stored : candidate);
+        return built;
+    }
+
+    // 行のETagより先に破棄されるよう、他のリスナーより先に実行する
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        invalidate();
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    // seqを先に読むので、一覧がseqの時点より古くなることはない（新しい分には次の更新でETagが変わるだけ）
+    private Snapshot build(long generation) {
+        try {
+            long seq = animeService.lastChangeSeq();
+            List<Anime> animeList = animeService.getAllAnime(seq);
+            byte[] json = encode(animeList);
+            if (json.length < minCompressedSize) {
+                return new Snapshot(generation, seq, animeList, json, null);
+            }
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+                out.write(json);
+            }
+            return new Snapshot(generation, seq, animeList, json, gzip.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // anime.json.fast-writerが有効なときはレスポンスの書き出しと同じくAnimeJsonWriterを使う
+    private byte[] encode(List<Anime> animeList) throws IOException {
+        if (!fastWriter) {
+            return objectMapper.writeValueAsBytes(animeList);
+        }
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        AnimeJsonWriter.write(animeList, json);
+        return json.toByteArray();
+    }
+
+    // 圧縮の閾値より小さいときはgzipがnull
+    public record Snapshot(long generation, long seq, List<Anime> animeList, byte[] json, byte[] gzip) {
+
+        public String etag() {
+            return AnimeVersions.listEtag(seq);
+        }
+    }
+}
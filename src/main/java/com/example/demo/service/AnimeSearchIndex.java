@@ -0,0 +1,126 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 名前をNFKC正規化して文字bi-gramに分解した転置インデックス。分かち書きが不要なので日本語の部分一致にも使える
+// 1文字のクエリでも部分一致するよう、名前は1文字ずつのuni-gramでも登録する。2文字以上のクエリはbi-gramだけで引く
+public class AnimeSearchIndex {
+
+    private static final Comparator<Map.Entry<Anime, Integer>> RANKING =
+            Map.Entry.<Anime, Integer>comparingByValue().reversed()
+                    .thenComparing(entry -> entry.getKey().getName().length())
+                    .thenComparing(entry -> entry.getKey().getId());
+
+    private final Map<String, Set<Integer>> postings = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Anime> documents = new ConcurrentHashMap<>();
+
+    public void put(Anime anime) {
+        documents.compute(anime.getId(), (id, previous) -> {
+            if (previous != null) {
+                removePostings(id, previous);
+            }
+            for (String gram : indexTerms(anime.getName())) {
+                postings.compute(gram, (key, ids) -> {
+                    Set<Integer> updated = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                    updated.add(id);
+                    return updated;
+                });
+            }
+            return anime;
+        });
+    }
+
+    public void remove(Integer id) {
+        documents.computeIfPresent(id, (key, previous) -> {
+            removePostings(key, previous);
+            return null;
+        });
+    }
+
+    public void clear() {
+        documents.clear();
+        postings.clear();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public List<Anime> search(String query, int limit) {
+        Set<String> grams = tokenize(query);
+        if (grams.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Map<Integer, Integer> matches = new HashMap<>();
+        for (String gram : grams) {
+            Set<Integer> ids = postings.get(gram);
+            if (ids != null) {
+                ids.forEach(id -> matches.merge(id, 1, Integer::sum));
+            }
+        }
+        PriorityQueue<Map.Entry<Anime, Integer>> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        matches.forEach((id, count) -> {
+            Anime anime = documents.get(id);
+            if (anime != null) {
+                top.offer(Map.entry(anime, count));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        });
+        List<Map.Entry<Anime, Integer>> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        return ranked.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private void removePostings(Integer id, Anime anime) {
+        for (String gram : indexTerms(anime.getName())) {
+            postings.computeIfPresent(gram, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    // クエリの分解。1文字の語はuni-gram、2文字以上の語はbi-gramにする
+    static Set<String> tokenize(String text) {
+        return grams(text, false);
+    }
+
+    static Set<String> indexTerms(String text) {
+        return grams(text, true);
+    }
+
+    private static Set<String> grams(String text, boolean withUnigrams) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text == null) {
+            return grams;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        for (String term : normalized.split("\\s+")) {
+            int[] codePoints = term.codePoints().toArray();
+            if (withUnigrams || codePoints.length == 1) {
+                for (int codePoint : codePoints) {
+                    grams.add(Character.toString(codePoint));
+                }
+            }
+            for (int i = 0; i + 1 < codePoints.length; i++) {
+                grams.add(new String(codePoints, i, 2));
+            }
+        }
+        return grams;
+    }
+}
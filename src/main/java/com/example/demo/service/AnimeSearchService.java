@@ -0,0 +1,39 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Service
+@Profile("!reactive")
+public class AnimeSearchService {
+
+    static final int MAX_SEARCH_RESULTS = 100;
+
+    private final AnimeSearchIndex index = new AnimeSearchIndex();
+
+    // 起動時の全件はAnimeStartupScanが読み込む
+    public void clearIndex() {
+        index.clear();
+    }
+
+    public void index(Anime anime) {
+        index.put(anime);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        if (event.type() == AnimeChangedEvent.Type.DELETED) {
+            index.remove(event.id());
+        } else if (event.id() != null) {
+            index.put(event.anime());
+        }
+    }
+
+    public List<Anime> searchAnime(String query, int limit) {
+        return index.search(query, Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS));
+    }
+}
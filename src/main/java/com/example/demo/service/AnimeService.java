@@ -1,28 +1,127 @@
 package com.example.demo.service;
 
+import com.example.demo.config.AnimeSingleFlightProperties;
+import com.example.demo.datasource.DataSourceRoute;
 import com.example.demo.entity.Anime;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.exception.PreconditionFailedException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.AnimeMapper;
+import com.example.demo.mapper.AnimeOutboxMapper;
+import com.example.demo.response.AnimeMultiGet;
+import com.example.demo.response.AnimePage;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
+@Profile("!reactive")
 public class AnimeService {
 
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int INSERT_CHUNK_SIZE = 1000;
+
+    static final int SELECT_CHUNK_SIZE = 1000;
+
     private final AnimeMapper animeMapper;
 
-    public AnimeService(AnimeMapper animeMapper) {
+    private final AnimeCache animeCache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AnimeOutboxMapper animeOutboxMapper;
+
+    private final AnimeBatchLoader batchLoader;
+
+    private final SingleFlight<Integer, Optional<Anime>> animeLoads;
+
+    // 読み込みを始める前に採番済みだった変更履歴のseqごとにまとめる
+    private final SingleFlight<Long, List<Anime>> allAnimeLoads;
+
+    public AnimeService(AnimeMapper animeMapper, AnimeCache animeCache, ApplicationEventPublisher eventPublisher,
+                        AnimeOutboxMapper animeOutboxMapper, AnimeBatchLoader batchLoader,
+                        AnimeSingleFlightProperties singleFlightProperties) {
         this.animeMapper = animeMapper;
+        this.animeCache = animeCache;
+        this.eventPublisher = eventPublisher;
+        this.animeOutboxMapper = animeOutboxMapper;
+        this.batchLoader = batchLoader;
+        this.animeLoads = new SingleFlight<>(singleFlightProperties.getTimeout());
+        this.allAnimeLoads = new SingleFlight<>(singleFlightProperties.getTimeout());
+    }
+
+    // 同時に呼ばれたときは1回だけ問い合わせて結果を共有するため、変更できないListを返す
+    // 全件取得のスナップショットに載せるのでプライマリから読む
+    // seqにはlastChangeSeq()で読んだ値を渡す。その時点以降に始めた読み込みの結果だけを返す
+    public List<Anime> getAllAnime(long seq) {
+        return allAnimeLoads.execute(seq,
+                () -> Collections.unmodifiableList(DataSourceRoute.readFromPrimary(animeMapper::findAll)));
+    }
+
+    // コミット済みの最後の変更履歴のseq。AnimeServiceを通した更新があるたびに増える
+    public long lastChangeSeq() {
+        return DataSourceRoute.readFromPrimary(animeOutboxMapper::findLastSeq);
+    }
+
+    public AnimePage getAnimePage(Integer after, int limit) {
+        int pageSize = pageSize(limit);
+        return toPage(animeMapper.findAllAfter(after, pageSize + 1), pageSize);
     }
 
-    public List<Anime> getAllAnime() {
-        return animeMapper.findAll();
+    // 名前の前方一致を指定したときは(name, id)の順に返し、カーソルにはafterNameとafterの両方を使う
+    public AnimePage searchAnime(String genre, String namePrefix, String afterName, Integer after, int limit) {
+        int pageSize = pageSize(limit);
+        if (namePrefix == null) {
+            return toPage(animeMapper.search(genre, null, null, after, pageSize + 1), pageSize);
+        }
+        List<Anime> animeList = animeMapper.search(genre, escapeLikePattern(namePrefix), afterName, after, pageSize + 1);
+        if (animeList.size() <= pageSize) {
+            return new AnimePage(animeList, null);
+        }
+        List<Anime> page = List.copyOf(animeList.subList(0, pageSize));
+        Anime last = page.get(pageSize - 1);
+        return new AnimePage(page, last.getId(), last.getName());
+    }
+
+    private static int pageSize(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+    }
+
+    private static AnimePage toPage(List<Anime> animeList, int pageSize) {
+        if (animeList.size() <= pageSize) {
+            return new AnimePage(animeList, null);
+        }
+        List<Anime> page = List.copyOf(animeList.subList(0, pageSize));
+        return new AnimePage(page, page.get(pageSize - 1).getId());
+    }
+
+    private static String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    public void exportAnime(Consumer<Anime> consumer) {
+        animeMapper.streamAll(context -> consumer.accept(context.getResultObject()));
     }
 
     public Anime getAnime(Integer id) {
-        Optional<Anime> animeId = animeMapper.findById(id);
+        Optional<Anime> animeId = animeCache.getIfPresent(id);
+        if (animeId == null) {
+            animeId = animeLoads.execute(id, () -> animeCache.get(id, this::findById));
+        }
         if (animeId.isPresent()) {
             return animeId.get();
         } else {
@@ -30,27 +129,129 @@ public class AnimeService {
         }
     }
 
+    private Optional<Anime> findById(Integer id) {
+        if (!batchLoader.isEnabled()) {
+            return DataSourceRoute.readFromPrimary(() -> animeMapper.findById(id));
+        }
+        return batchLoader.get(id);
+    }
+
+    // 重複したidは最初の1件だけを残し、要求された順序で返す
+    public AnimeMultiGet getAnimeList(List<Integer> ids) {
+        List<Integer> distinctIds = ids.stream().distinct().toList();
+        Map<Integer, Optional<Anime>> found = animeCache.getAll(distinctIds, this::findByIds);
+        List<Anime> animeList = new ArrayList<>(distinctIds.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : distinctIds) {
+            found.getOrDefault(id, Optional.empty()).ifPresentOrElse(animeList::add, () -> missingIds.add(id));
+        }
+        return new AnimeMultiGet(animeList, missingIds);
+    }
+
+    private Map<Integer, Optional<Anime>> findByIds(Set<? extends Integer> ids) {
+        Map<Integer, Optional<Anime>> result = new HashMap<>();
+        List<Integer> idList = new ArrayList<>(ids);
+        idList.forEach(id -> result.put(id, Optional.empty()));
+        for (int from = 0; from < idList.size(); from += SELECT_CHUNK_SIZE) {
+            List<Integer> chunk = idList.subList(from, Math.min(from + SELECT_CHUNK_SIZE, idList.size()));
+            DataSourceRoute.readFromPrimary(() -> animeMapper.findByIds(chunk))
+                    .forEach(anime -> result.put(anime.getId(), Optional.of(anime)));
+        }
+        return result;
+    }
+
+    @Transactional
     public void registerAnime(String name, String genre) {
         Anime anime = new Anime(name, genre);
         animeMapper.createAnime(anime);
+        if (anime.getId() != null) {
+            invalidate(anime.getId());
+        }
+        publish(List.of(AnimeChangedEvent.created(anime)));
     }
 
-    public void updateAnime(Integer id, String name, String genre) {
-        Optional<Anime> animeId = animeMapper.findById(id);
-        if (animeId.isPresent()) {
-            Anime anime = new Anime(id, name, genre);
-            animeMapper.updateAnime(anime);
-        } else {
+    @Transactional
+    public List<Integer> registerAnimeList(List<Anime> animeList) {
+        for (int from = 0; from < animeList.size(); from += INSERT_CHUNK_SIZE) {
+            int to = Math.min(from + INSERT_CHUNK_SIZE, animeList.size());
+            animeMapper.createAnimeList(animeList.subList(from, to));
+        }
+        List<Integer> ids = animeList.stream().map(Anime::getId).toList();
+        ids.stream().filter(Objects::nonNull).forEach(this::invalidate);
+        publish(animeList.stream().map(AnimeChangedEvent::created).toList());
+        return ids;
+    }
+
+    // expectedVersionを指定したときはバージョンが一致する場合だけ更新する（ロックは取らない）
+    @Transactional
+    public void updateAnime(Integer id, String name, String genre, Integer expectedVersion) {
+        Anime anime = new Anime(id, name, genre, expectedVersion);
+        if (animeMapper.updateAnime(anime) == 0) {
+            if (expectedVersion != null && animeMapper.findById(id).isPresent()) {
+                throw new PreconditionFailedException("version does not match");
+            }
             throw new ResourceNotFoundException("resource not found");
         }
+        invalidate(id);
+        publish(List.of(AnimeChangedEvent.updated(anime)));
     }
 
+    @Transactional
     public void deleteAnime(Integer id) {
-        Optional<Anime> animeId = animeMapper.findById(id);
-        if (animeId.isPresent()) {
-            animeMapper.deleteAnime(id);
-        } else {
+        if (animeMapper.deleteAnime(id) == 0) {
             throw new ResourceNotFoundException("resource not found");
         }
+        invalidate(id);
+        publish(List.of(AnimeChangedEvent.deleted(id)));
+    }
+
+    // 変更履歴（anime_outbox）への追記は更新と同じトランザクションで行う
+    // seqの採番はコミットまで他の書き込みを待たせるので、トランザクションの最後に行う
+    private void publish(List<AnimeChangedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        animeOutboxMapper.reserveSeq(events.size());
+        long firstSeq = animeOutboxMapper.findReservedSeq() - events.size() + 1;
+        List<AnimeChange> changes = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            changes.add(toChange(firstSeq + i, events.get(i)));
+        }
+        for (int from = 0; from < changes.size(); from += INSERT_CHUNK_SIZE) {
+            int to = Math.min(from + INSERT_CHUNK_SIZE, changes.size());
+            animeOutboxMapper.insertAll(changes.subList(from, to));
+        }
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+    private static AnimeChange toChange(long seq, AnimeChangedEvent event) {
+        Anime anime = event.anime();
+        if (anime == null) {
+            return new AnimeChange(seq, event.type().name(), event.id(), null, null, null);
+        }
+        return new AnimeChange(seq, event.type().name(), event.id(), anime.getName(), anime.getGenre(), anime.getVersion());
+    }
+
+    // 他のノードで変更されたアニメのキャッシュを破棄する
+    public void evict(Integer id) {
+        invalidate(id);
+    }
+
+    // トランザクション中はコミット前に他のリクエストが古い行を読み込んでキャッシュしうるので、コミット後にも破棄する
+    private void invalidate(Integer id) {
+        evictNow(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(id);
+                }
+            });
+        }
+    }
+
+    private void evictNow(Integer id) {
+        animeCache.invalidate(id);
+        animeLoads.forget(id);
     }
 }
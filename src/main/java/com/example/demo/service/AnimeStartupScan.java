@@ -0,0 +1,74 @@
+package com.example.demo.service;
+
+import com.example.demo.datasource.DataSourceRoute;
+import com.example.demo.entity.Anime;
+import com.example.demo.mapper.AnimeMapper;
+import com.example.demo.mapper.AnimeOutboxMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+// 起動時に全件を1回だけ読み、行ごとのバージョンと全文検索のインデックスを作る
+// Webサーバーがリクエストを受け付け始める前（より小さいphase）に読み終え、読み込み中の更新と競合しないようにする
+@Component
+@Profile("!reactive")
+public class AnimeStartupScan implements SmartLifecycle {
+
+    private final AnimeMapper animeMapper;
+
+    private final AnimeOutboxMapper animeOutboxMapper;
+
+    private final AnimeVersions animeVersions;
+
+    private final AnimeSearchService animeSearchService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile boolean running;
+
+    public AnimeStartupScan(AnimeMapper animeMapper, AnimeOutboxMapper animeOutboxMapper, AnimeVersions animeVersions,
+                            AnimeSearchService animeSearchService, ApplicationEventPublisher eventPublisher) {
+        this.animeMapper = animeMapper;
+        this.animeOutboxMapper = animeOutboxMapper;
+        this.animeVersions = animeVersions;
+        this.animeSearchService = animeSearchService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void start() {
+        scan();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    // 他のノードは読み込み中も更新しうるので、読み込む前のseqを記録し、その後の変更は変更履歴から適用し直す
+    public void scan() {
+        animeSearchService.clearIndex();
+        long seq = DataSourceRoute.readFromPrimary(() -> {
+            long lastSeq = animeOutboxMapper.findLastSeq();
+            animeMapper.streamAll(context -> {
+                Anime anime = context.getResultObject();
+                animeVersions.record(anime);
+                animeSearchService.index(anime);
+            });
+            return lastSeq;
+        });
+        eventPublisher.publishEvent(new AnimeStartupScannedEvent(seq));
+    }
+}
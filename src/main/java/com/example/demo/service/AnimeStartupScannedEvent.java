@@ -0,0 +1,6 @@
+package com.example.demo.service;
+
+// 起動時の全件読み込みが終わったときに発行する。seqは読み込みを始める直前にコミット済みだった変更履歴の最後のseqで、
+// それより後の変更は読み込みに含まれていない可能性があるので、変更履歴からseqの次以降を適用し直す
+public record AnimeStartupScannedEvent(long seq) {
+}
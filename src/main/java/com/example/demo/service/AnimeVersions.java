@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// DBに問い合わせずにETagを返すための行ごとのバージョン。起動時の値はAnimeStartupScanが読み込む
+// 一覧のETagは変更履歴のseqから作るので、どのノードでも再起動後でも同じ状態なら同じ値になる
+// 削除した行はDELETEDを残し、後から届いた削除前の変更を適用しないようにする（idは再利用されない）
+@Component
+@Profile("!reactive")
+public class AnimeVersions {
+
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    private final Map<Integer, Integer> versions = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        if (event.type() == AnimeChangedEvent.Type.DELETED) {
+            versions.put(event.id(), DELETED);
+        } else if (event.id() != null) {
+            record(event.anime());
+        }
+    }
+
+    public void record(Anime anime) {
+        versions.merge(anime.getId(), anime.getVersion() == null ? 1 : anime.getVersion(), Math::max);
+    }
+
+    public String etag(Integer id) {
+        Integer version = versions.get(id);
+        return version == null || version == DELETED ? null : etag(id, version);
+    }
+
+    // 同じか新しいバージョン、または削除をすでに反映済みならtrue。バージョンのない変更は常にfalse
+    public boolean isApplied(AnimeChangedEvent.Type type, Integer id, Integer version) {
+        Integer applied = versions.get(id);
+        if (applied == null) {
+            return false;
+        }
+        if (type == AnimeChangedEvent.Type.DELETED) {
+            return applied == DELETED;
+        }
+        return version != null && applied >= version;
+    }
+
+    // seqは一覧を読み込む直前に採番済みだった変更履歴の最後のseq
+    public static String listEtag(long seq) {
+        return "\"list-" + seq + "\"";
+    }
+
+    public static String etag(Anime anime) {
+        return etag(anime.getId(), anime.getVersion() == null ? 1 : anime.getVersion());
+    }
+
+    // JSON以外の形式やgzipの本文には、同じバージョンでも別のETagを付ける
+    public static String etag(String etag, String representation) {
+        if (representation == null) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + representation + "\"";
+    }
+
+    private static String etag(Integer id, int version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    // If-Matchの値からバージョンを取り出す。このidの強いETagでなければnullを返す。形式ごとの接尾辞は無視する
+    public static Integer versionOf(Integer id, String etag) {
+        String prefix = "\"" + id + "-";
+        if (etag == null || !etag.startsWith(prefix) || !etag.endsWith("\"") || etag.length() <= prefix.length() + 1) {
+            return null;
+        }
+        String version = etag.substring(prefix.length(), etag.length() - 1);
+        int suffix = version.indexOf('-');
+        try {
+            return Integer.valueOf(suffix < 0 ? version : version.substring(0, suffix));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
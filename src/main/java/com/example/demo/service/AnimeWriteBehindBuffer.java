@@ -0,0 +1,181 @@
+package com.example.demo.service;
+
+import com.example.demo.config.AnimeWriteBehindProperties;
+import com.example.demo.entity.Anime;
+import com.example.demo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jctools.queues.MpscArrayQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+// 登録をリングバッファに溜め、件数か経過時間のどちらかが閾値に達したら一括登録する
+@Component
+@Profile("!reactive")
+public class AnimeWriteBehindBuffer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AnimeWriteBehindBuffer.class);
+
+    private final AnimeService animeService;
+
+    private final AnimeWriteBehindProperties properties;
+
+    private final MpscArrayQueue<Anime> queue;
+
+    private final Timer flushTimer;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Counter deadLetterCounter;
+
+    private volatile boolean running;
+
+    // バッファが空で、次に積まれるまで止まっている
+    private volatile boolean idle;
+
+    private volatile Thread flusher;
+
+    public AnimeWriteBehindBuffer(AnimeService animeService, AnimeWriteBehindProperties properties, MeterRegistry meterRegistry) {
+        this.animeService = animeService;
+        this.properties = properties;
+        this.queue = new MpscArrayQueue<>(properties.getCapacity());
+        this.flushTimer = Timer.builder("anime.write_behind.flush")
+                .description("Time taken to insert one batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("anime.write_behind.batch.size")
+                .description("Number of anime inserted per batch")
+                .register(meterRegistry);
+        this.deadLetterCounter = Counter.builder("anime.write_behind.dead_letter")
+                .description("Number of buffered anime dropped after every insert attempt failed")
+                .register(meterRegistry);
+        Gauge.builder("anime.write_behind.queue.depth", queue, MpscArrayQueue::size)
+                .description("Number of anime waiting to be inserted")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    // バッファが満杯のときはfalseを返す。停止中（起動前・シャットダウン中）は受け付けない
+    public boolean offer(Anime anime) {
+        if (!running) {
+            throw new ServiceUnavailableException("write-behind buffer is not running");
+        }
+        if (!queue.offer(anime)) {
+            return false;
+        }
+        if (idle || queue.size() >= properties.getBatchSize()) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        flusher = new Thread(this::flushLoop, "anime-write-behind");
+        running = true;
+        flusher.start();
+    }
+
+    // Webサーバーが受付を止めた後に停止し、残っている分をすべて登録してから戻る
+    @Override
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flusher = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    // 空のときは次に積まれるまで止まり、件数が満たないときはflush-intervalの期限まで待つ
+    private void flushLoop() {
+        long intervalNanos = properties.getFlushInterval().toNanos();
+        List<Anime> batch = new ArrayList<>(properties.getBatchSize());
+        long firstQueuedAt = 0;
+        while (running) {
+            boolean wasEmpty = batch.isEmpty();
+            queue.drain(batch::add, properties.getBatchSize() - batch.size());
+            if (batch.isEmpty()) {
+                idle = true;
+                // idleを立てた後に積まれた分はofferが起こすので、取りこぼさない
+                if (queue.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+            if (wasEmpty) {
+                firstQueuedAt = System.nanoTime();
+            }
+            long waited = System.nanoTime() - firstQueuedAt;
+            if (batch.size() >= properties.getBatchSize() || waited >= intervalNanos) {
+                flush(batch);
+            } else {
+                LockSupport.parkNanos(this, intervalNanos - waited);
+            }
+        }
+        while (!batch.isEmpty() || !queue.isEmpty()) {
+            queue.drain(batch::add, properties.getBatchSize() - batch.size());
+            flush(batch);
+        }
+    }
+
+    // 一括登録をmax-attempts回まで再試行し、それでも失敗したら1件ずつ登録する。1件でも失敗した行はログに残して捨てる
+    // 戻ったときbatchは常に空になる
+    void flush(List<Anime> batch) {
+        for (int attempt = 1; attempt <= properties.getMaxAttempts(); attempt++) {
+            try {
+                flushTimer.record(() -> animeService.registerAnimeList(List.copyOf(batch)));
+                batchSizeSummary.record(batch.size());
+                batch.clear();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("failed to insert {} buffered anime (attempt {}/{})", batch.size(), attempt,
+                        properties.getMaxAttempts(), e);
+                if (attempt < properties.getMaxAttempts()) {
+                    LockSupport.parkNanos(properties.getFlushInterval().toNanos() * attempt);
+                }
+            }
+        }
+        for (Anime anime : batch) {
+            try {
+                animeService.registerAnime(anime.getName(), anime.getGenre());
+            } catch (RuntimeException e) {
+                deadLetterCounter.increment();
+                log.error("dropped buffered anime name={} genre={}", anime.getName(), anime.getGenre(), e);
+            }
+        }
+        batch.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.exception.PreconditionFailedException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.ReactiveAnimeOutboxRepository;
+import com.example.demo.repository.ReactiveAnimeRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// 更新はAnimeServiceと同じく変更履歴（anime_outbox）への追記と同じトランザクションで行う
+// このプロファイルはキャッシュを持たないので、他のノードのキャッシュは変更履歴のリレーを通して無効化される
+@Service
+@Profile("reactive")
+public class ReactiveAnimeService {
+
+    private final ReactiveAnimeRepository animeRepository;
+
+    private final ReactiveAnimeOutboxRepository outboxRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveAnimeService(ReactiveAnimeRepository animeRepository, ReactiveAnimeOutboxRepository outboxRepository,
+                                TransactionalOperator transactionalOperator) {
+        this.animeRepository = animeRepository;
+        this.outboxRepository = outboxRepository;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    public Flux<Anime> getAllAnime() {
+        return animeRepository.findAll();
+    }
+
+    public Mono<Anime> getAnime(Integer id) {
+        return animeRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("resource not found")));
+    }
+
+    public Mono<Void> registerAnime(String name, String genre) {
+        return animeRepository.createAnime(new Anime(name, genre))
+                .flatMap(id -> publish(AnimeChangedEvent.Type.CREATED, id, name, genre, null))
+                .as(transactionalOperator::transactional);
+    }
+
+    // expectedVersionを指定したときはバージョンが一致する場合だけ更新する（ロックは取らない）
+    public Mono<Void> updateAnime(Integer id, String name, String genre, Integer expectedVersion) {
+        return animeRepository.updateAnime(new Anime(id, name, genre, expectedVersion))
+                .flatMap(affectedRows -> affectedRows == 0
+                        ? notUpdated(id, expectedVersion)
+                        : animeRepository.findUpdatedVersion())
+                .flatMap(version -> publish(AnimeChangedEvent.Type.UPDATED, id, name, genre, version))
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<Void> deleteAnime(Integer id) {
+        return animeRepository.deleteAnime(id)
+                .flatMap(affectedRows -> affectedRows == 0
+                        ? Mono.<Void>error(new ResourceNotFoundException("resource not found"))
+                        : publish(AnimeChangedEvent.Type.DELETED, id, null, null, null))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Integer> notUpdated(Integer id, Integer expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.error(new ResourceNotFoundException("resource not found"));
+        }
+        return animeRepository.findById(id)
+                .hasElement()
+                .flatMap(exists -> Mono.error(exists
+                        ? new PreconditionFailedException("version does not match")
+                        : new ResourceNotFoundException("resource not found")));
+    }
+
+    // seqの採番はコミットまで他の書き込みを待たせるので、トランザクションの最後に行う
+    private Mono<Void> publish(AnimeChangedEvent.Type type, Integer id, String name, String genre, Integer version) {
+        return outboxRepository.reserveSeq(1)
+                .flatMap(seq -> outboxRepository.insert(new AnimeChange(seq, type.name(), id, name, genre, version)));
+    }
+}
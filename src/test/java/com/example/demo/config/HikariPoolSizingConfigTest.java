@@ -0,0 +1,37 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HikariPoolSizingConfigTest {
+
+    @Test
+    void コア数の2倍と実効スピンドル数の和がプールサイズになること() {
+        DataSourcePoolProperties properties = new DataSourcePoolProperties();
+        assertThat(HikariPoolSizingConfig.maximumPoolSize(8, properties)).isEqualTo(17);
+    }
+
+    @Test
+    void DBの最大接続数をインスタンス数で割った値を超えないこと() {
+        DataSourcePoolProperties properties = new DataSourcePoolProperties();
+        properties.setDbMaxConnections(100);
+        properties.setReservedConnections(10);
+        properties.setInstances(6);
+        assertThat(HikariPoolSizingConfig.maximumPoolSize(32, properties)).isEqualTo(15);
+    }
+
+    @Test
+    void 最大接続数を明示したときはその値を使うこと() {
+        DataSourcePoolProperties properties = new DataSourcePoolProperties();
+        properties.setMaximumSize(40);
+        assertThat(HikariPoolSizingConfig.maximumPoolSize(8, properties)).isEqualTo(40);
+    }
+
+    @Test
+    void 接続数の上限が足りないときも1以上になること() {
+        DataSourcePoolProperties properties = new DataSourcePoolProperties();
+        properties.setDbMaxConnections(5);
+        assertThat(HikariPoolSizingConfig.maximumPoolSize(8, properties)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadWriteRoutingConfigTest {
+
+    @Test
+    void レプリカのプールはプライマリのHikariの設定を引き継ぎ接続先と待ち時間だけ変えること() {
+        Binder binder = new Binder(new MapConfigurationPropertySource(Map.of(
+                "spring.datasource.hikari.pool-name", "anime",
+                "spring.datasource.hikari.connection-timeout", "30000",
+                "spring.datasource.hikari.max-lifetime", "1800000",
+                "spring.datasource.hikari.maximum-pool-size", "17",
+                "spring.datasource.hikari.data-source-properties[cachePrepStmts]", "true",
+                "anime.datasource.routing.connection-timeout", "500ms",
+                "anime.datasource.routing.replicas[0].url", "jdbc:mysql://localhost:3308/anime_list",
+                "anime.datasource.routing.replicas[0].username", "user")));
+        ReadWriteRoutingProperties properties = binder.bind("anime.datasource.routing", ReadWriteRoutingProperties.class).get();
+
+        try (HikariDataSource dataSource = ReadWriteRoutingConfig.replicaDataSource(binder, properties, 0)) {
+            assertThat(dataSource.getPoolName()).isEqualTo("anime-replica-0");
+            assertThat(dataSource.getJdbcUrl()).isEqualTo("jdbc:mysql://localhost:3308/anime_list");
+            assertThat(dataSource.getDriverClassName()).isEqualTo("com.mysql.cj.jdbc.Driver");
+            assertThat(dataSource.getMaxLifetime()).isEqualTo(1800000);
+            assertThat(dataSource.getMaximumPoolSize()).isEqualTo(17);
+            assertThat(dataSource.getDataSourceProperties()).containsEntry("cachePrepStmts", "true");
+            assertThat(dataSource.getConnectionTimeout()).isEqualTo(500);
+            assertThat(dataSource.isReadOnly()).isTrue();
+        }
+    }
+}
@@ -1,34 +1,60 @@
 package com.example.demo.controller;
 
 import com.example.demo.entity.Anime;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.exception.GoneException;
+import com.example.demo.exception.PreconditionFailedException;
+import com.example.demo.form.AnimeForm;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.response.AnimeChangePage;
+import com.example.demo.response.AnimeMultiGet;
+import com.example.demo.response.AnimePage;
+import com.example.demo.service.AnimeChangeRelay;
+import com.example.demo.service.AnimeListSnapshot;
+import com.example.demo.service.AnimeSearchService;
 import com.example.demo.service.AnimeService;
+import com.example.demo.service.AnimeVersions;
+import com.example.demo.service.AnimeWriteBehindBuffer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.json.AutoConfigureJsonTesters;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import static net.javacrumbs.jsonunit.assertj.JsonAssert.assertThatJson;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.*;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest
 @AutoConfigureJsonTesters
+@Import(AnimeListSnapshot.class)
 public class AnimeControllerTest {
     @Autowired
     private MockMvc mvc;
@@ -36,6 +62,18 @@ public class AnimeControllerTest {
     @MockBean
     private AnimeService animeService;
 
+    @MockBean
+    private AnimeSearchService animeSearchService;
+
+    @MockBean
+    private AnimeVersions animeVersions;
+
+    @MockBean
+    private AnimeWriteBehindBuffer writeBehindBuffer;
+
+    @MockBean
+    private AnimeChangeRelay animeChangeRelay;
+
     @Autowired
     private JacksonTester<List<Anime>> animeListJacksonTester;
 
@@ -45,13 +83,21 @@ public class AnimeControllerTest {
     @Autowired
     ObjectMapper mapper;
 
+    @Autowired
+    AnimeListSnapshot animeListSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        animeListSnapshot.invalidate();
+    }
+
     @Test
     public void アニメが全件取得できること() throws Exception {
 
         List<Anime> animeList = List.of(
                 new Anime(1, "Your Name", "Romantic Fantasy"),
                 new Anime(2, "Kill la Kill", "Action"));
-        doReturn(animeList).when(animeService).getAllAnime();
+        doReturn(animeList).when(animeService).getAllAnime(anyLong());
 
         String url = "/api/anime";
 
@@ -65,7 +111,218 @@ public class AnimeControllerTest {
 
         assertThatJson(response.getContentAsString()).isEqualTo(animeListJacksonTester.write(animeList).getJson());
 
-        verify(animeService, times(1)).getAllAnime();
+        verify(animeService, times(1)).getAllAnime(anyLong());
+
+    }
+
+    @Test
+    public void AcceptEncodingにgzipを指定したときに圧縮済みの全件を返すこと() throws Exception {
+
+        List<Anime> animeList = IntStream.rangeClosed(1, 100)
+                .mapToObj(id -> new Anime(id, "Kill la Kill " + id, "Action"))
+                .toList();
+        doReturn(animeList).when(animeService).getAllAnime(anyLong());
+
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get("/api/anime")
+                        .header("Accept-Encoding", "gzip, deflate"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("Content-Encoding", "gzip"))
+                        .andExpect(header().string("Vary", "Accept, Accept-Encoding"))
+                        .andExpect(header().string("ETag", "\"list-0-gzip\""))
+                        .andReturn()
+                        .getResponse();
+
+        assertThatJson(gunzip(response.getContentAsByteArray())).isEqualTo(animeListJacksonTester.write(animeList).getJson());
+
+    }
+
+    @Test
+    public void 更新がない間は全件のスナップショットを使い回すこと() throws Exception {
+
+        doReturn(List.of(new Anime(1, "Your Name", "Romantic Fantasy"))).when(animeService).getAllAnime(anyLong());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime")).andExpect(status().isOk());
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk());
+        verify(animeService, times(1)).getAllAnime(anyLong());
+
+        animeListSnapshot.invalidate();
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime")).andExpect(status().isOk());
+        verify(animeService, times(2)).getAllAnime(anyLong());
+
+    }
+
+    @Test
+    public void 全件が圧縮の閾値より小さいときは圧縮せずに返すこと() throws Exception {
+
+        doReturn(List.of(new Anime(1, "Your Name", "Romantic Fantasy"))).when(animeService).getAllAnime(anyLong());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$[0].name", is("Your Name")));
+
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void カーソルとlimitを指定したときにページ単位でアニメを取得できること() throws Exception {
+
+        AnimePage animePage = new AnimePage(List.of(new Anime(2, "Kill la Kill", "Action")), 2);
+        doReturn(animePage).when(animeService).getAnimePage(1, 1);
+
+        String url = "/api/anime?after=1&limit=1";
+
+        mvc.perform(MockMvcRequestBuilders.get(url)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.anime", hasSize(1)))
+                        .andExpect(jsonPath("$.anime[0].name", is("Kill la Kill")))
+                        .andExpect(jsonPath("$.nextCursor", is(2)));
+
+        verify(animeService, times(1)).getAnimePage(1, 1);
+        verify(animeService, never()).getAllAnime(anyLong());
+
+    }
+
+    @Test
+    public void 複数のidを指定してまとめて取得できること() throws Exception {
+
+        AnimeMultiGet animeMultiGet = new AnimeMultiGet(List.of(new Anime(2, "Fairy Tail", "Adventure"), new Anime(1, "Kill la Kill", "Action")), List.of(3));
+        doReturn(animeMultiGet).when(animeService).getAnimeList(List.of(2, 1, 3));
+
+        String url = "/api/anime?ids=2,1,3";
+
+        mvc.perform(MockMvcRequestBuilders.get(url)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.anime", hasSize(2)))
+                        .andExpect(jsonPath("$.anime[0].id", is(2)))
+                        .andExpect(jsonPath("$.anime[1].id", is(1)))
+                        .andExpect(jsonPath("$.missingIds", contains(3)));
+
+        verify(animeService, times(1)).getAnimeList(List.of(2, 1, 3));
+        verify(animeService, never()).getAllAnime(anyLong());
+
+    }
+
+    @Test
+    public void 指定したseqより後の変更履歴を取得できること() throws Exception {
+
+        AnimeChangePage animeChangePage = new AnimeChangePage(List.of(
+                new AnimeChange(6L, "UPDATED", 1, "Your Name", "Romantic Fantasy", 2),
+                new AnimeChange(7L, "DELETED", 2, null, null, null)), 7);
+        doReturn(animeChangePage).when(animeChangeRelay).changesSince(5, 100);
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime/changes?since=5")
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.changes", hasSize(2)))
+                        .andExpect(jsonPath("$.changes[0].seq", is(6)))
+                        .andExpect(jsonPath("$.changes[0].type", is("UPDATED")))
+                        .andExpect(jsonPath("$.changes[0].animeId", is(1)))
+                        .andExpect(jsonPath("$.changes[0].version", is(2)))
+                        .andExpect(jsonPath("$.changes[1].type", is("DELETED")))
+                        .andExpect(jsonPath("$.nextSince", is(7)));
+
+        verify(animeService, never()).getAllAnime(anyLong());
+
+    }
+
+    @Test
+    public void 保存期間を過ぎた変更履歴を要求したときに410を返すこと() throws Exception {
+        doThrow(new GoneException("changes after seq 2 are no longer retained")).when(animeChangeRelay).changesSince(2, 100);
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime/changes?since=2")
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isGone())
+                        .andExpect(jsonPath("$.message", is("changes after seq 2 are no longer retained")));
+    }
+
+    @Test
+    public void ジャンルと名前の前方一致で検索できること() throws Exception {
+
+        AnimePage animePage = new AnimePage(List.of(new Anime(1, "Kill la Kill", "Action")), null);
+        doReturn(animePage).when(animeService).searchAnime("Action", "Ki", null, null, 100);
+
+        String url = "/api/anime?genre=Action&namePrefix=Ki";
+
+        mvc.perform(MockMvcRequestBuilders.get(url)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.anime", hasSize(1)))
+                        .andExpect(jsonPath("$.anime[0].name", is("Kill la Kill")));
+
+        verify(animeService, times(1)).searchAnime("Action", "Ki", null, null, 100);
+        verify(animeService, never()).getAllAnime(anyLong());
+
+    }
+
+    @Test
+    public void 名前の前方一致検索の次のページを名前とidのカーソルで取得できること() throws Exception {
+
+        AnimePage animePage = new AnimePage(List.of(new Anime(10, "Konosuba", "Comedy")), 10, "Konosuba");
+        doReturn(animePage).when(animeService).searchAnime(null, "K", "Kaguya-sama", 6, 1);
+
+        String url = "/api/anime?namePrefix=K&afterName=Kaguya-sama&after=6&limit=1";
+
+        mvc.perform(MockMvcRequestBuilders.get(url)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.nextCursor", is(10)))
+                        .andExpect(jsonPath("$.nextName", is("Konosuba")));
+
+        verify(animeService, times(1)).searchAnime(null, "K", "Kaguya-sama", 6, 1);
+
+    }
+
+    @Test
+    public void キーワードで名前を全文検索できること() throws Exception {
+
+        List<Anime> animeList = List.of(new Anime(3, "鬼滅の刃", "Action"));
+        doReturn(animeList).when(animeSearchService).searchAnime("鬼滅", 20);
+
+        String url = "/api/anime/search?q=鬼滅";
+
+        mvc.perform(MockMvcRequestBuilders.get(url)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$", hasSize(1)))
+                        .andExpect(jsonPath("$[0].name", is("鬼滅の刃")));
+
+        verify(animeSearchService, times(1)).searchAnime("鬼滅", 20);
+
+    }
+
+    @Test
+    public void アニメを改行区切りのJSONでエクスポートできること() throws Exception {
+
+        doAnswer(invocation -> {
+            Consumer<Anime> consumer = invocation.getArgument(0);
+            consumer.accept(new Anime(1, "Your Name", "Romantic Fantasy"));
+            consumer.accept(new Anime(2, "Kill la Kill", "Action"));
+            return null;
+        }).when(animeService).exportAnime(any());
+
+        String url = "/api/anime/export";
+
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get(url))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse();
+
+        assertThat(response.getContentType()).startsWith("application/x-ndjson");
+        String[] lines = response.getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThatJson(lines[0]).isEqualTo(animeJacksonTester.write(new Anime(1, "Your Name", "Romantic Fantasy")).getJson());
+        assertThatJson(lines[1]).isEqualTo(animeJacksonTester.write(new Anime(2, "Kill la Kill", "Action")).getJson());
+
+        verify(animeService, times(1)).exportAnime(any());
 
     }
 
@@ -89,6 +346,143 @@ public class AnimeControllerTest {
 
     }
 
+    @Test
+    public void アニメを取得したときに行のバージョンから作ったETagを返すこと() throws Exception {
+
+        doReturn(new Anime(1, "Your Name", "Romantic Fantasy", 3)).when(animeService).getAnime(1);
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3\""));
+
+    }
+
+    @Test
+    public void IfNoneMatchがバージョンと一致するときにDBに問い合わせず304を返すこと() throws Exception {
+
+        doReturn("\"1-3\"").when(animeVersions).etag(1);
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime/1")
+                        .header("If-None-Match", "\"1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-3\""));
+
+        verify(animeService, never()).getAnime(1);
+
+    }
+
+    @Test
+    public void IfNoneMatchが一覧のバージョンと一致するときにDBに問い合わせず304を返すこと() throws Exception {
+
+        doReturn(5L).when(animeService).lastChangeSeq();
+        doReturn(List.of(new Anime(1, "Your Name", "Romantic Fantasy"))).when(animeService).getAllAnime(anyLong());
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime"))
+                .andExpect(status().isOk());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime")
+                        .header("If-None-Match", "\"list-5\""))
+                .andExpect(status().isNotModified());
+
+        verify(animeService, times(1)).lastChangeSeq();
+        verify(animeService, times(1)).getAllAnime(anyLong());
+
+    }
+
+    @Test
+    public void 一覧の304にもVaryを付けること() throws Exception {
+
+        doReturn(5L).when(animeService).lastChangeSeq();
+        doReturn(List.of(new Anime(1, "Your Name", "Romantic Fantasy"))).when(animeService).getAllAnime(anyLong());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime")
+                        .header("If-None-Match", "\"list-5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept, Accept-Encoding"));
+
+    }
+
+    @Test
+    public void 一覧の形式ごとに別のETagを返すこと() throws Exception {
+
+        doReturn(5L).when(animeService).lastChangeSeq();
+        doReturn(List.of(new Anime(1, "Your Name", "Romantic Fantasy"))).when(animeService).getAllAnime(anyLong());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"list-5\""))
+                .andExpect(header().string("Vary", "Accept, Accept-Encoding"));
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"list-5-cbor\""))
+                .andExpect(header().string("Vary", "Accept, Accept-Encoding"));
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime").accept("application/cbor")
+                        .header("If-None-Match", "\"list-5\""))
+                .andExpect(status().isOk());
+
+    }
+
+    @Test
+    public void アニメをCBORで取得したときにJSONとは別のETagを返すこと() throws Exception {
+
+        doReturn(new Anime(1, "Your Name", "Romantic Fantasy", 3)).when(animeService).getAnime(1);
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime/1").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-3-cbor\""))
+                .andExpect(header().string("Vary", "Accept"));
+
+    }
+
+    @Test
+    public void 一覧のバージョンが変わっているときに全件と変更履歴のseqから作ったETagを返すこと() throws Exception {
+
+        doReturn(6L).when(animeService).lastChangeSeq();
+        doReturn(List.of(new Anime(1, "Your Name", "Romantic Fantasy"))).when(animeService).getAllAnime(anyLong());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime")
+                        .header("If-None-Match", "\"list-5\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"list-6\""))
+                .andExpect(jsonPath("$", hasSize(1)));
+
+    }
+
+    @Test
+    public void AcceptにCBORを指定したときにCBORでアニメを返すこと() throws Exception {
+
+        Anime anime = new Anime(1, "Your Name", "Romantic Fantasy");
+        doReturn(anime).when(animeService).getAnime(1);
+
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get("/api/anime/1")
+                        .accept("application/cbor"))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse();
+
+        assertThat(response.getContentType()).isEqualTo("application/cbor");
+        assertThat(new CBORMapper().readValue(response.getContentAsByteArray(), Anime.class)).isEqualTo(anime);
+
+    }
+
+    @Test
+    public void AcceptにSmileを指定したときにSmileでアニメの一覧を返すこと() throws Exception {
+
+        List<Anime> animeList = List.of(
+                new Anime(1, "Your Name", "Romantic Fantasy"),
+                new Anime(2, "Kill la Kill", "Action"));
+        doReturn(animeList).when(animeService).getAllAnime(anyLong());
+
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get("/api/anime")
+                        .accept("application/x-jackson-smile"))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse();
+
+        assertThat(response.getContentType()).isEqualTo("application/x-jackson-smile");
+        assertThat(new SmileMapper().readValue(response.getContentAsByteArray(), Anime[].class)).containsExactlyElementsOf(animeList);
+
+    }
+
     @Test
     public void アニメが取得できないときに例外をthrowすること() throws Exception {
 
@@ -107,6 +501,19 @@ public class AnimeControllerTest {
 
     }
 
+    @Test
+    public void 進行中の読み込みを待ちきれなかったときに503を返すこと() throws Exception {
+
+        doThrow(new ServiceUnavailableException("timed out waiting for an in-flight load")).when(animeService).getAnime(1);
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/anime/1")
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isServiceUnavailable())
+                        .andExpect(jsonPath("$.status", is("503")))
+                        .andExpect(jsonPath("$.message", is("timed out waiting for an in-flight load")));
+
+    }
+
     @Test
     public void アニメの登録ができること() throws Exception {
 
@@ -125,6 +532,140 @@ public class AnimeControllerTest {
         verify(animeService, times(1)).registerAnime("Your Name", "Romantic Fantasy");
     }
 
+    @Test
+    public void CBORのリクエストボディでアニメを登録できること() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.post("/api/anime")
+                        .contentType("application/cbor")
+                        .content(new CBORMapper().writeValueAsBytes(new AnimeForm("Your Name", "Romantic Fantasy"))))
+                .andExpect(status().isCreated());
+
+        verify(animeService, times(1)).registerAnime("Your Name", "Romantic Fantasy");
+    }
+
+    @Test
+    public void 非同期登録が有効なときにバッファに積んで202を返すこと() throws Exception {
+
+        doReturn(true).when(writeBehindBuffer).isEnabled();
+        doReturn(true).when(writeBehindBuffer).offer(new Anime("Your Name", "Romantic Fantasy"));
+
+        mvc.perform(MockMvcRequestBuilders.post("/api/anime")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(this.mapper.writeValueAsString(new Anime("Your Name", "Romantic Fantasy"))))
+                .andExpect(status().isAccepted());
+
+        verify(writeBehindBuffer, times(1)).offer(new Anime("Your Name", "Romantic Fantasy"));
+        verify(animeService, never()).registerAnime(any(), any());
+    }
+
+    @Test
+    public void 非同期登録のバッファが満杯のときに429を返すこと() throws Exception {
+
+        doReturn(true).when(writeBehindBuffer).isEnabled();
+        doReturn(false).when(writeBehindBuffer).offer(any());
+
+        mvc.perform(MockMvcRequestBuilders.post("/api/anime")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(this.mapper.writeValueAsString(new Anime("Your Name", "Romantic Fantasy"))))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.status", is("429")));
+
+        verify(animeService, never()).registerAnime(any(), any());
+    }
+
+    @Test
+    public void 非同期登録のバッファが停止しているときに503を返すこと() throws Exception {
+
+        doReturn(true).when(writeBehindBuffer).isEnabled();
+        doThrow(new ServiceUnavailableException("write-behind buffer is not running")).when(writeBehindBuffer).offer(any());
+
+        mvc.perform(MockMvcRequestBuilders.post("/api/anime")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(this.mapper.writeValueAsString(new Anime("Your Name", "Romantic Fantasy"))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status", is("503")));
+
+        verify(animeService, never()).registerAnime(any(), any());
+    }
+
+    @Test
+    public void 複数のアニメを一括登録できること() throws Exception {
+
+        List<Anime> animeList = List.of(new Anime("Your Name", "Romantic Fantasy"), new Anime("Kill la Kill", "Action"));
+        doReturn(List.of(3, 4)).when(animeService).registerAnimeList(animeList);
+
+        String url = "/api/anime/batch";
+
+        mvc.perform(MockMvcRequestBuilders.post(url)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("""
+                        {
+                            "anime": [
+                                { "name": "Your Name", "genre": "Romantic Fantasy" },
+                                { "name": "Kill la Kill", "genre": "Action" }
+                            ]
+                        }
+                        """))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0]", is(3)))
+                .andExpect(jsonPath("$[1]", is(4)));
+
+        verify(animeService, times(1)).registerAnimeList(animeList);
+    }
+
+    @Test
+    public void 一括登録の要素が不正なときにバリデーションエラーとなること() throws Exception {
+
+        String url = "/api/anime/batch";
+
+        mvc.perform(MockMvcRequestBuilders.post(url)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("""
+                        {
+                            "anime": [
+                                { "name": "Your Name", "genre": "Romantic Fantasy" },
+                                { "name": "", "genre": "Action" }
+                            ]
+                        }
+                        """))
+                .andExpect(jsonPath("$.status", is("400")))
+                .andExpect(jsonPath("$['anime[1].name']", is("cannot be empty")));
+
+        verify(animeService, never()).registerAnimeList(any());
+    }
+
+    @Test
+    public void 一括登録の要素がnullのときにバリデーションエラーとなること() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.post("/api/anime/batch")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("""
+                        {
+                            "anime": [
+                                { "name": "Your Name", "genre": "Romantic Fantasy" },
+                                null
+                            ]
+                        }
+                        """))
+                .andExpect(jsonPath("$.status", is("400")))
+                .andExpect(jsonPath("$['anime[1]']", is("cannot be null")));
+
+        verify(animeService, never()).registerAnimeList(any());
+    }
+
+    @Test
+    public void 名前が100文字を超えるときにバリデーションエラーとなること() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.post("/api/anime")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("{ \"name\": \"" + "a".repeat(101) + "\", \"genre\": \"Action\" }"))
+                .andExpect(jsonPath("$.status", is("400")))
+                .andExpect(jsonPath("$.name", is("cannot be longer than 100 characters")));
+
+        verify(animeService, never()).registerAnime(any(), any());
+    }
+
     @Test
     public void アニメの更新ができること() throws Exception {
 
@@ -140,13 +681,13 @@ public class AnimeControllerTest {
 
         assertThat(response.getContentAsString()).isEqualTo("anime successfully updated");
 
-        verify(animeService, times(1)).updateAnime(1, "Kill la Kill", "Action");
+        verify(animeService, times(1)).updateAnime(1, "Kill la Kill", "Action", null);
     }
 
     @Test
     public void 更新対象のアニメが存在しないときにレスポンスボディにエラーメッセージが返されること() throws Exception {
 
-        doThrow(new ResourceNotFoundException("resource not found")).when(animeService).updateAnime(1, "Kill la Kill", "Action");
+        doThrow(new ResourceNotFoundException("resource not found")).when(animeService).updateAnime(1, "Kill la Kill", "Action", null);
 
         Anime anime = new Anime(1,"Kill la Kill", "Action");
 
@@ -160,7 +701,46 @@ public class AnimeControllerTest {
 
         assertThat(error).isEqualTo("resource not found");
 
-        verify(animeService, times(1)).updateAnime(1, "Kill la Kill", "Action");
+        verify(animeService, times(1)).updateAnime(1, "Kill la Kill", "Action", null);
+    }
+
+    @Test
+    public void IfMatchを指定したときにETagのバージョンを条件に更新すること() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.patch("/api/anime/1")
+                        .header("If-Match", "\"1-3\"")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(this.mapper.writeValueAsString(new Anime(1, "Kill la Kill", "Action"))))
+                .andExpect(status().isCreated());
+
+        verify(animeService, times(1)).updateAnime(1, "Kill la Kill", "Action", 3);
+    }
+
+    @Test
+    public void バージョンが一致しないときに412を返すこと() throws Exception {
+
+        doThrow(new PreconditionFailedException("version does not match"))
+                .when(animeService).updateAnime(1, "Kill la Kill", "Action", 3);
+
+        mvc.perform(MockMvcRequestBuilders.patch("/api/anime/1")
+                        .header("If-Match", "\"1-3\"")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(this.mapper.writeValueAsString(new Anime(1, "Kill la Kill", "Action"))))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status", is("412")))
+                .andExpect(jsonPath("$.message", is("version does not match")));
+    }
+
+    @Test
+    public void IfMatchが別のアニメのETagのときに更新せず412を返すこと() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.patch("/api/anime/1")
+                        .header("If-Match", "\"2-3\"")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(this.mapper.writeValueAsString(new Anime(1, "Kill la Kill", "Action"))))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(animeService, never()).updateAnime(any(), any(), any(), any());
     }
 
     @Test
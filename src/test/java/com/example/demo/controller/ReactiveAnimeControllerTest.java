@@ -0,0 +1,196 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Anime;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.service.ReactiveAnimeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.ArgumentMatchers.any;
+
+@WebFluxTest(controllers = ReactiveAnimeController.class)
+@ActiveProfiles("reactive")
+public class ReactiveAnimeControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveAnimeService animeService;
+
+    @Test
+    public void アニメが全件取得できること() {
+
+        doReturn(Flux.just(new Anime(1, "Your Name", "Romantic Fantasy"), new Anime(2, "Kill la Kill", "Action")))
+                .when(animeService).getAllAnime();
+
+        webTestClient.get().uri("/api/anime")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Anime.class)
+                .containsExactly(new Anime(1, "Your Name", "Romantic Fantasy"), new Anime(2, "Kill la Kill", "Action"));
+
+        verify(animeService, times(1)).getAllAnime();
+    }
+
+    @Test
+    public void アニメを改行区切りのJSONでストリーミング取得できること() {
+
+        doReturn(Flux.just(new Anime(1, "Your Name", "Romantic Fantasy"), new Anime(2, "Kill la Kill", "Action")))
+                .when(animeService).getAllAnime();
+
+        webTestClient.get().uri("/api/anime")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Anime.class)
+                .hasSize(2);
+    }
+
+    @Test
+    public void アニメが取得できないときに404エラーとなること() {
+
+        doReturn(Mono.error(new ResourceNotFoundException("resource not found"))).when(animeService).getAnime(99);
+
+        webTestClient.get().uri("/api/anime/99")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("resource not found")
+                .jsonPath("$.path").isEqualTo("/api/anime/99");
+    }
+
+    @Test
+    public void アニメの登録ができること() {
+
+        doReturn(Mono.empty()).when(animeService).registerAnime("Your Name", "Romantic Fantasy");
+
+        webTestClient.post().uri("/api/anime")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {
+                            "name" : "Your Name",
+                            "genre" : "Romantic Fantasy"
+                        }
+                        """)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(String.class).isEqualTo("anime successfully created");
+
+        verify(animeService, times(1)).registerAnime("Your Name", "Romantic Fantasy");
+    }
+
+    @Test
+    public void 登録時に空文字を入力したときにバリデーションエラーが返されること() {
+
+        webTestClient.post().uri("/api/anime")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {
+                            "name" : "",
+                            "genre" : "Romantic Fantasy"
+                        }
+                        """)
+                .exchange()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("400")
+                .jsonPath("$.name").isEqualTo("cannot be empty");
+
+        verify(animeService, never()).registerAnime(any(), any());
+    }
+
+    @Test
+    public void 更新対象のアニメが存在しないときに404エラーとなること() {
+
+        doReturn(Mono.error(new ResourceNotFoundException("resource not found")))
+                .when(animeService).updateAnime(99, "Kill la Kill", "Action", null);
+
+        webTestClient.patch().uri("/api/anime/99")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {
+                            "name" : "Kill la Kill",
+                            "genre" : "Action"
+                        }
+                        """)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void アニメが削除できること() {
+
+        doReturn(Mono.empty()).when(animeService).deleteAnime(1);
+
+        webTestClient.delete().uri("/api/anime/1")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(String.class).isEqualTo("anime successfully deleted");
+
+        verify(animeService, times(1)).deleteAnime(1);
+    }
+
+    @Test
+    public void アニメを取得したときにETagを返すこと() {
+
+        doReturn(Mono.just(new Anime(1, "Your Name", "Romantic Fantasy", 3))).when(animeService).getAnime(1);
+
+        webTestClient.get().uri("/api/anime/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1-3\"");
+    }
+
+    @Test
+    public void IfMatchのバージョンを指定して更新できること() {
+
+        doReturn(Mono.empty()).when(animeService).updateAnime(1, "Kill la Kill", "Action", 3);
+
+        webTestClient.patch().uri("/api/anime/1")
+                .header("If-Match", "\"1-3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {
+                            "name" : "Kill la Kill",
+                            "genre" : "Action"
+                        }
+                        """)
+                .exchange()
+                .expectStatus().isCreated();
+
+        verify(animeService, times(1)).updateAnime(1, "Kill la Kill", "Action", 3);
+    }
+
+    @Test
+    public void IfMatchが別のidのETagのときに412エラーとなること() {
+
+        webTestClient.patch().uri("/api/anime/1")
+                .header("If-Match", "\"2-3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {
+                            "name" : "Kill la Kill",
+                            "genre" : "Action"
+                        }
+                        """)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        verify(animeService, never()).updateAnime(any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class ReadWriteRoutingDataSourceTest {
+
+    DataSource primary = mock(DataSource.class);
+
+    DataSource replica0 = mock(DataSource.class);
+
+    DataSource replica1 = mock(DataSource.class);
+
+    ReadWriteRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new ReadWriteRoutingDataSource(primary, List.of(replica0, replica1), Duration.ofSeconds(1));
+        dataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        DataSourceRoute.restore(null);
+    }
+
+    @Test
+    void 振り分け先が指定されていないときはプライマリを使うこと() {
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReadWriteRoutingDataSource.PRIMARY_KEY);
+    }
+
+    @Test
+    void 参照はレプリカにラウンドロビンで振り分けられること() {
+        DataSourceRoute.use(DataSourceRoute.REPLICA);
+        assertThat(List.of(
+                dataSource.determineCurrentLookupKey(),
+                dataSource.determineCurrentLookupKey(),
+                dataSource.determineCurrentLookupKey()))
+                .containsExactly("replica-0", "replica-1", "replica-0");
+    }
+
+    @Test
+    void ヘルスチェックに失敗したレプリカには振り分けないこと() throws SQLException {
+        Connection connection = mock(Connection.class);
+        doReturn(true).when(connection).isValid(1);
+        doReturn(connection).when(replica0).getConnection();
+        doThrow(new SQLException("connection refused")).when(replica1).getConnection();
+
+        dataSource.checkReplicas();
+
+        DataSourceRoute.use(DataSourceRoute.REPLICA);
+        assertThat(dataSource.healthyReplicaCount()).isEqualTo(1);
+        assertThat(List.of(dataSource.determineCurrentLookupKey(), dataSource.determineCurrentLookupKey()))
+                .containsExactly("replica-0", "replica-0");
+    }
+
+    @Test
+    void 正常なレプリカがないときはプライマリから読むこと() throws SQLException {
+        doThrow(new SQLException("connection refused")).when(replica0).getConnection();
+        doThrow(new SQLException("connection refused")).when(replica1).getConnection();
+
+        dataSource.checkReplicas();
+
+        DataSourceRoute.use(DataSourceRoute.REPLICA);
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReadWriteRoutingDataSource.PRIMARY_KEY);
+    }
+
+    @Test
+    void レプリカに接続できないときはプライマリから読みそのレプリカを外すこと() throws SQLException {
+        Connection connection = mock(Connection.class);
+        doReturn(connection).when(primary).getConnection();
+        doThrow(new SQLTransientConnectionException("timeout")).when(replica0).getConnection();
+
+        DataSourceRoute.use(DataSourceRoute.REPLICA);
+
+        assertThat(dataSource.getConnection()).isSameAs(connection);
+        assertThat(dataSource.healthyReplicaCount()).isEqualTo(1);
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo("replica-1");
+    }
+}
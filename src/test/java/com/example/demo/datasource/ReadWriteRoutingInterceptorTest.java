@@ -0,0 +1,123 @@
+package com.example.demo.datasource;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ReadWriteRoutingInterceptorTest {
+
+    ReadWriteRoutingInterceptor interceptor = new ReadWriteRoutingInterceptor();
+
+    Configuration configuration = new Configuration();
+
+    MappedStatement findById = new MappedStatement.Builder(configuration,
+            "com.example.demo.mapper.AnimeMapper.findById", mock(SqlSource.class), SqlCommandType.SELECT).build();
+
+    MappedStatement updateAnime = new MappedStatement.Builder(configuration,
+            "com.example.demo.mapper.AnimeMapper.updateAnime", mock(SqlSource.class), SqlCommandType.UPDATE).build();
+
+    List<DataSourceRoute> routes = new ArrayList<>();
+
+    Executor executor = mock(Executor.class);
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void 参照はレプリカに振り分けられ実行後に元に戻ること() throws Throwable {
+        recordRoutes();
+
+        query();
+
+        assertThat(routes).containsExactly(DataSourceRoute.REPLICA);
+        assertThat(DataSourceRoute.current()).isEqualTo(DataSourceRoute.PRIMARY);
+    }
+
+    @Test
+    void 同じリクエスト内で更新した後の参照はプライマリに振り分けられること() throws Throwable {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        recordRoutes();
+
+        query();
+        update();
+        query();
+
+        assertThat(routes).containsExactly(DataSourceRoute.REPLICA, DataSourceRoute.PRIMARY, DataSourceRoute.PRIMARY);
+    }
+
+    @Test
+    void 別のリクエストでは更新後もレプリカから読むこと() throws Throwable {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        recordRoutes();
+        update();
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        query();
+
+        assertThat(routes).containsExactly(DataSourceRoute.PRIMARY, DataSourceRoute.REPLICA);
+    }
+
+    @Test
+    void キャッシュに載せる参照はリクエストの外でもプライマリに振り分けられること() throws Throwable {
+        recordRoutes();
+
+        DataSourceRoute.readFromPrimary(() -> {
+            queryUnchecked();
+            return null;
+        });
+        query();
+
+        assertThat(routes).containsExactly(DataSourceRoute.PRIMARY, DataSourceRoute.REPLICA);
+    }
+
+    private void recordRoutes() throws Exception {
+        doAnswer(invocation -> {
+            routes.add(DataSourceRoute.current());
+            return List.of();
+        }).when(executor).query(any(), any(), any(), any());
+        doAnswer(invocation -> {
+            routes.add(DataSourceRoute.current());
+            return 1;
+        }).when(executor).update(any(), any());
+    }
+
+    private void query() throws Throwable {
+        interceptor.intercept(new Invocation(executor,
+                Executor.class.getMethod("query", MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class),
+                new Object[]{findById, 1, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER}));
+    }
+
+    private void queryUnchecked() {
+        try {
+            query();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void update() throws Throwable {
+        interceptor.intercept(new Invocation(executor,
+                Executor.class.getMethod("update", MappedStatement.class, Object.class),
+                new Object[]{updateAnime, "param"}));
+    }
+}
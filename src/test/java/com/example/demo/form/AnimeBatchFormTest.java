@@ -0,0 +1,90 @@
+package com.example.demo.form;
+
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class AnimeBatchFormTest {
+
+    @Test
+    void 正しい値を入力した時にバリデーションエラーとならないこと() {
+        AnimeBatchForm animeBatchForm = new AnimeBatchForm();
+        animeBatchForm.setAnime(List.of(new AnimeForm("Your Name", "Romantic"), new AnimeForm("Gintama", "Comedy")));
+
+        Set<ConstraintViolation<AnimeBatchForm>> violations =
+                Validation
+                        .buildDefaultValidatorFactory()
+                        .getValidator()
+                        .validate(animeBatchForm);
+        assertThat(violations.size()).isEqualTo(0);
+    }
+
+    @Test
+    void 空のリストを入力した時にバリデーションエラーとなること() {
+        AnimeBatchForm animeBatchForm = new AnimeBatchForm();
+        animeBatchForm.setAnime(List.of());
+
+        Set<ConstraintViolation<AnimeBatchForm>> violations =
+                Validation
+                        .buildDefaultValidatorFactory()
+                        .getValidator()
+                        .validate(animeBatchForm);
+
+        assertThat(violations)
+                .extracting(
+                        propertyPath -> propertyPath.getPropertyPath().toString(),
+                        message -> message.getMessage())
+                .containsOnly(
+                        tuple("anime", "cannot be empty")
+                );
+    }
+
+    @Test
+    void 上限を超える件数を入力した時にバリデーションエラーとなること() {
+        AnimeBatchForm animeBatchForm = new AnimeBatchForm();
+        animeBatchForm.setAnime(Collections.nCopies(10001, new AnimeForm("Your Name", "Romantic")));
+
+        Set<ConstraintViolation<AnimeBatchForm>> violations =
+                Validation
+                        .buildDefaultValidatorFactory()
+                        .getValidator()
+                        .validate(animeBatchForm);
+
+        assertThat(violations)
+                .extracting(
+                        propertyPath -> propertyPath.getPropertyPath().toString(),
+                        message -> message.getMessage())
+                .containsOnly(
+                        tuple("anime", "cannot contain more than 10000 items")
+                );
+    }
+
+    @Test
+    void 要素に空文字を入力した時に要素ごとにバリデーションエラーとなること() {
+        AnimeBatchForm animeBatchForm = new AnimeBatchForm();
+        animeBatchForm.setAnime(List.of(new AnimeForm("Your Name", "Romantic"), new AnimeForm("", "")));
+
+        Set<ConstraintViolation<AnimeBatchForm>> violations =
+                Validation
+                        .buildDefaultValidatorFactory()
+                        .getValidator()
+                        .validate(animeBatchForm);
+
+        assertThat(violations)
+                .extracting(
+                        propertyPath -> propertyPath.getPropertyPath().toString(),
+                        message -> message.getMessage())
+                .containsOnly(
+                        tuple("anime[1].name", "cannot be empty"),
+                        tuple("anime[1].genre", "cannot be empty")
+                );
+    }
+}
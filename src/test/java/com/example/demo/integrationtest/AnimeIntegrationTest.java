@@ -1,8 +1,10 @@
 package com.example.demo.integrationtest;
 
+import com.example.demo.service.AnimeCache;
 import com.github.database.rider.core.api.dataset.DataSet;
 import com.github.database.rider.core.api.dataset.ExpectedDataSet;
 import com.github.database.rider.spring.api.DBRider;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
@@ -33,8 +35,16 @@ public class AnimeIntegrationTest {
     @Autowired
     MockMvc mvc;
 
+    @Autowired
+    AnimeCache animeCache;
+
     ZonedDateTime zonedDateTime = ZonedDateTime.of(2022, 12, 13, 0, 0, 0, 0, ZoneId.of("Asia/Tokyo"));
 
+    @BeforeEach
+    void setUp() {
+        animeCache.invalidateAll();
+    }
+
     @Test
     @DataSet(value = "datasets/anime.yml")
     void アニメを全体取得できること() throws Exception{
@@ -63,6 +73,118 @@ public class AnimeIntegrationTest {
 
     }
 
+    @Test
+    @DataSet(value = "datasets/anime.yml")
+    void カーソルを使ってアニメをページ単位で取得できること() throws Exception{
+        String url = "/api/anime?limit=1";
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get(url)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse();
+
+        String expected = """
+                {
+                    "anime": [{
+                        "id": 1,
+                        "name": "Kill la Kill",
+                        "genre": "Action"
+                    }],
+                    "nextCursor": 1
+                }
+                """;
+
+        assertThatJson(response.getContentAsString()).isEqualTo(expected);
+
+        String nextUrl = "/api/anime?after=1&limit=1";
+        MockHttpServletResponse nextResponse = mvc.perform(MockMvcRequestBuilders.get(nextUrl)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse();
+
+        String nextExpected = """
+                {
+                    "anime": [{
+                        "id": 2,
+                        "name": "Fairy Tail",
+                        "genre": "Adventure"
+                    }],
+                    "nextCursor": null
+                }
+                """;
+
+        assertThatJson(nextResponse.getContentAsString()).isEqualTo(nextExpected);
+
+    }
+
+    @Test
+    @DataSet(value = "datasets/animeForSearch.yml")
+    void ジャンルと名前の前方一致でアニメを検索できること() throws Exception{
+        String url = "/api/anime?genre=Comedy&namePrefix=K&limit=2";
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get(url)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse();
+
+        String expected = """
+                {
+                    "anime": [{
+                        "id": 19,
+                        "name": "K-On!",
+                        "genre": "Comedy"
+                    },
+                    {
+                        "id": 6,
+                        "name": "Kaguya-sama",
+                        "genre": "Comedy"
+                    }],
+                    "nextCursor": 6,
+                    "nextName": "Kaguya-sama"
+                }
+                """;
+
+        assertThatJson(response.getContentAsString()).isEqualTo(expected);
+
+        String nextUrl = "/api/anime?genre=Comedy&namePrefix=K&limit=2&afterName=Kaguya-sama&after=6";
+        MockHttpServletResponse nextResponse = mvc.perform(MockMvcRequestBuilders.get(nextUrl)
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse();
+
+        String nextExpected = """
+                {
+                    "anime": [{
+                        "id": 10,
+                        "name": "Konosuba",
+                        "genre": "Comedy"
+                    }],
+                    "nextCursor": null
+                }
+                """;
+
+        assertThatJson(nextResponse.getContentAsString()).isEqualTo(nextExpected);
+
+    }
+
+    @Test
+    @DataSet(value = "datasets/anime.yml")
+    void アニメを改行区切りのJSONでエクスポートできること() throws Exception{
+        String url = "/api/anime/export";
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get(url))
+                        .andExpect(status().isOk())
+                        .andReturn()
+                        .getResponse();
+
+        assertThat(response.getContentAsString()).isEqualTo("""
+                {"id":1,"name":"Kill la Kill","genre":"Action"}
+                {"id":2,"name":"Fairy Tail","genre":"Adventure"}
+                """);
+
+    }
+
     @Test
     @DataSet(value = "datasets/anime.yml")
     void アニメが取得できるときに1件アニメを返すこと() throws Exception{
@@ -132,6 +254,28 @@ public class AnimeIntegrationTest {
         assertThat(response.getContentAsString()).isEqualTo("anime successfully created");
     }
 
+    @Test
+    @DataSet(value = "datasets/anime.yml")
+    @ExpectedDataSet(value = "datasets/expectedAfterInsertAnime.yml", ignoreCols = "id")
+    void 複数のアニメを一括登録できること() throws Exception {
+        String url = "/api/anime/batch";
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.post(url)
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("""
+                                {
+                                    "anime": [
+                                        { "name" : "Gintama", "genre" : "Comedy" },
+                                        { "name" : "Your Name", "genre" : "Romantic Fantasy" }
+                                    ]
+                                }
+                                """))
+                        .andExpect(status().isCreated())
+                        .andExpect(jsonPath("$", hasSize(2)))
+                        .andReturn().getResponse();
+
+        assertThat(response.getContentAsString()).matches("\\[\\d+,\\d+]");
+    }
+
     @Test
     @DataSet(value = "datasets/anime.yml")
     @ExpectedDataSet(value = "datasets/expectedAfterUpdateAnime.yml")
@@ -0,0 +1,97 @@
+package com.example.demo.integrationtest;
+
+import com.example.demo.service.AnimeCache;
+import com.github.database.rider.core.api.dataset.DataSet;
+import com.github.database.rider.core.api.dataset.ExpectedDataSet;
+import com.github.database.rider.spring.api.DBRider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static net.javacrumbs.jsonunit.assertj.JsonAssert.assertThatJson;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// AnimeJsonHttpMessageConverterを有効にしても、Anime以外の本文（スナップショットのバイト列や文字列）の書き出しが変わらないこと
+@SpringBootTest(properties = "anime.json.fast-writer=true")
+@AutoConfigureMockMvc
+@DBRider
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class AnimeJsonFastWriterIntegrationTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    AnimeCache animeCache;
+
+    @BeforeEach
+    void setUp() {
+        animeCache.invalidateAll();
+    }
+
+    @Test
+    @DataSet(value = "datasets/anime.yml")
+    void 全件取得はスナップショットのJSONをそのまま返すこと() throws Exception {
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get("/api/anime")
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        String expected = """
+                [{
+                    "id": 1,
+                    "name": "Kill la Kill",
+                    "genre": "Action"
+                },
+                {
+                    "id": 2,
+                    "name": "Fairy Tail",
+                    "genre": "Adventure"
+                }]
+                """;
+
+        assertThatJson(response.getContentAsString()).isEqualTo(expected);
+    }
+
+    @Test
+    @DataSet(value = "datasets/anime.yml")
+    void 一件取得はAnimeJsonWriterで書き出したJSONを返すこと() throws Exception {
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.get("/api/anime/1")
+                        .accept(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+
+        assertThat(response.getContentAsString()).isEqualTo("{\"id\":1,\"name\":\"Kill la Kill\",\"genre\":\"Action\"}");
+    }
+
+    @Test
+    @DataSet(value = "datasets/anime.yml")
+    @ExpectedDataSet(value = "datasets/expectedAfterITInsertAnime.yml", ignoreCols = "id")
+    void 登録のレスポンスの文字列はJSONの文字列にしないこと() throws Exception {
+        MockHttpServletResponse response = mvc.perform(MockMvcRequestBuilders.post("/api/anime")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content("""
+                                {
+                                    "name" : "Gintama",
+                                    "genre" : "Comedy"
+                                }
+                                """))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse();
+
+        assertThat(response.getContentAsString()).isEqualTo("anime successfully created");
+    }
+}
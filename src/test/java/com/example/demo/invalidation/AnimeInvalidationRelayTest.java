@@ -0,0 +1,195 @@
+package com.example.demo.invalidation;
+
+import com.example.demo.config.AnimeInvalidationProperties;
+import com.example.demo.entity.Anime;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.service.AnimeChangeRelay;
+import com.example.demo.service.AnimeChangedEvent;
+import com.example.demo.service.AnimeService;
+import com.example.demo.service.AnimeStartupScannedEvent;
+import com.example.demo.service.AnimeVersions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AnimeInvalidationRelayTest {
+
+    InMemoryAnimeInvalidationBus bus = new InMemoryAnimeInvalidationBus();
+
+    AnimeService animeServiceA = mock(AnimeService.class);
+
+    ApplicationEventPublisher eventPublisherA = mock(ApplicationEventPublisher.class);
+
+    AnimeService animeServiceB = mock(AnimeService.class);
+
+    ApplicationEventPublisher eventPublisherB = mock(ApplicationEventPublisher.class);
+
+    AnimeVersions animeVersionsA = new AnimeVersions();
+
+    AnimeVersions animeVersionsB = new AnimeVersions();
+
+    AnimeChangeRelay changeRelay = mock(AnimeChangeRelay.class);
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    AnimeInvalidationProperties properties = new AnimeInvalidationProperties();
+
+    AnimeInvalidationRelay nodeA;
+
+    AnimeInvalidationRelay nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = new AnimeInvalidationRelay(bus, animeServiceA, animeVersionsA, changeRelay, properties, eventPublisherA, meterRegistry);
+        nodeA.afterPropertiesSet();
+        nodeB = new AnimeInvalidationRelay(bus, animeServiceB, animeVersionsB, changeRelay, properties, eventPublisherB, meterRegistry);
+        nodeB.afterPropertiesSet();
+    }
+
+    @Test
+    public void 他のノードで更新されたときにキャッシュを破棄し更新後の行を載せたイベントを発行すること() {
+        nodeA.onAnimeChanged(AnimeChangedEvent.updated(new Anime(1, "Your Name", "Romantic Fantasy", 2)));
+
+        verify(animeServiceB).evict(1);
+        verify(eventPublisherB).publishEvent(new AnimeChangedEvent(
+                AnimeChangedEvent.Type.UPDATED, 1, new Anime(1, "Your Name", "Romantic Fantasy", 2), true));
+    }
+
+    @Test
+    public void 他のノードで削除されたときにキャッシュを破棄すること() {
+        nodeA.onAnimeChanged(AnimeChangedEvent.deleted(1));
+
+        verify(animeServiceB).evict(1);
+        verify(eventPublisherB).publishEvent(new AnimeChangedEvent(AnimeChangedEvent.Type.DELETED, 1, null, true));
+    }
+
+    @Test
+    public void 自ノードが発行したメッセージは無視すること() {
+        nodeA.onAnimeChanged(AnimeChangedEvent.deleted(1));
+
+        verify(animeServiceA, never()).evict(any());
+        verify(eventPublisherA, never()).publishEvent(any(AnimeChangedEvent.class));
+    }
+
+    @Test
+    public void 他のノードから受け取ったイベントはバスに流し直さないこと() {
+        nodeB.onAnimeChanged(new AnimeChangedEvent(AnimeChangedEvent.Type.DELETED, 1, null, true));
+
+        verify(animeServiceA, never()).evict(any());
+    }
+
+    @Test
+    public void バスへの配信に失敗しても例外をthrowしないこと() {
+        AnimeInvalidationBus failingBus = mock(AnimeInvalidationBus.class);
+        doThrow(new IllegalStateException("redis down")).when(failingBus).publish(any());
+        AnimeInvalidationRelay relay = new AnimeInvalidationRelay(failingBus, animeServiceA, animeVersionsA, changeRelay, properties, eventPublisherA, meterRegistry);
+
+        relay.onAnimeChanged(AnimeChangedEvent.deleted(1));
+
+        verify(failingBus).publish(any());
+    }
+
+    @Test
+    public void バスで届かなかった変更をanime_outboxから受け取り直すこと() throws Exception {
+        nodeA.onStartupScanned(new AnimeStartupScannedEvent(3));
+        nodeB.onStartupScanned(new AnimeStartupScannedEvent(3));
+        ArgumentCaptor<AnimeChangeRelay.Subscriber> captor = ArgumentCaptor.forClass(AnimeChangeRelay.Subscriber.class);
+        verify(changeRelay, times(2)).subscribe(eq(3L), captor.capture());
+
+        captor.getAllValues().get(1).send(new AnimeChange(4L, "UPDATED", 1, "Your Name", "Romantic Fantasy", 2));
+        captor.getAllValues().get(1).send(new AnimeChange(5L, "DELETED", 2, null, null, null));
+
+        verify(animeServiceB).evict(1);
+        verify(eventPublisherB).publishEvent(new AnimeChangedEvent(
+                AnimeChangedEvent.Type.UPDATED, 1, new Anime(1, "Your Name", "Romantic Fantasy", 2), true));
+        verify(animeServiceB).evict(2);
+        verify(eventPublisherB).publishEvent(new AnimeChangedEvent(AnimeChangedEvent.Type.DELETED, 2, null, true));
+        verify(animeServiceA, never()).evict(any());
+    }
+
+    @Test
+    public void 自ノードで削除した後に遅れて届いた更新は適用しないこと() throws Exception {
+        nodeA.onStartupScanned(new AnimeStartupScannedEvent(3));
+        ArgumentCaptor<AnimeChangeRelay.Subscriber> captor = ArgumentCaptor.forClass(AnimeChangeRelay.Subscriber.class);
+        verify(changeRelay).subscribe(eq(3L), captor.capture());
+        animeVersionsA.onAnimeChanged(AnimeChangedEvent.updated(new Anime(1, "Your Name", "Romantic Fantasy", 2)));
+        animeVersionsA.onAnimeChanged(AnimeChangedEvent.deleted(1));
+
+        captor.getValue().send(new AnimeChange(4L, "UPDATED", 1, "Your Name", "Romantic Fantasy", 2));
+        captor.getValue().send(new AnimeChange(5L, "DELETED", 1, null, null, null));
+
+        verify(animeServiceA, never()).evict(any());
+        verify(eventPublisherA, never()).publishEvent(any(AnimeChangedEvent.class));
+    }
+
+    @Test
+    public void 反映済みのバージョンより古い変更は適用しないこと() throws Exception {
+        nodeB.onStartupScanned(new AnimeStartupScannedEvent(3));
+        ArgumentCaptor<AnimeChangeRelay.Subscriber> captor = ArgumentCaptor.forClass(AnimeChangeRelay.Subscriber.class);
+        verify(changeRelay).subscribe(eq(3L), captor.capture());
+        animeVersionsB.record(new Anime(1, "Your Name", "Romantic Fantasy", 3));
+
+        captor.getValue().send(new AnimeChange(4L, "UPDATED", 1, "Kimi no Na wa", "Romantic Fantasy", 2));
+        captor.getValue().send(new AnimeChange(5L, "UPDATED", 1, "Your Name.", "Romantic Fantasy", 4));
+
+        verify(animeServiceB, times(1)).evict(1);
+        verify(eventPublisherB, times(1)).publishEvent(any(AnimeChangedEvent.class));
+        verify(eventPublisherB).publishEvent(new AnimeChangedEvent(
+                AnimeChangedEvent.Type.UPDATED, 1, new Anime(1, "Your Name.", "Romantic Fantasy", 4), true));
+    }
+
+    @Test
+    public void 保存期間を過ぎて購読を外されたときは最新の位置から購読し直すこと() {
+        doReturn(true).when(changeRelay).isRunning();
+        nodeA.onStartupScanned(new AnimeStartupScannedEvent(3));
+        ArgumentCaptor<AnimeChangeRelay.Subscriber> captor = ArgumentCaptor.forClass(AnimeChangeRelay.Subscriber.class);
+        verify(changeRelay).subscribe(eq(3L), captor.capture());
+
+        captor.getValue().complete();
+
+        verify(changeRelay).subscribe(isNull(), any());
+        assertThat(meterRegistry.get("anime.invalidation.replay.resubscribed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void 停止したときは購読し直さないこと() {
+        nodeA.onStartupScanned(new AnimeStartupScannedEvent(3));
+        ArgumentCaptor<AnimeChangeRelay.Subscriber> captor = ArgumentCaptor.forClass(AnimeChangeRelay.Subscriber.class);
+        verify(changeRelay).subscribe(eq(3L), captor.capture());
+
+        captor.getValue().complete();
+
+        verify(changeRelay, times(1)).subscribe(any(), any());
+    }
+
+    @Test
+    public void 起動時の全件読み込みが終わるまでanime_outboxを購読しないこと() {
+        verify(changeRelay, never()).subscribe(any(), any());
+    }
+
+    @Test
+    public void anime_outboxからの受け取り直しは無効にできること() {
+        AnimeChangeRelay disabledRelay = mock(AnimeChangeRelay.class);
+        AnimeInvalidationProperties disabled = new AnimeInvalidationProperties();
+        disabled.setReplayFromOutbox(false);
+
+        AnimeInvalidationRelay relay = new AnimeInvalidationRelay(bus, animeServiceA, animeVersionsA, disabledRelay, disabled, eventPublisherA, meterRegistry);
+        relay.afterPropertiesSet();
+        relay.onStartupScanned(new AnimeStartupScannedEvent(3));
+
+        verify(disabledRelay, never()).subscribe(any(), any());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.json;
+
+import com.example.demo.entity.Anime;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnimeJsonWriterTest {
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    public void Jacksonと同じJSONを書き出すこと() throws IOException {
+        Anime anime = new Anime(1, "鬼滅の刃", "ダークファンタジー", 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnimeJsonWriter.write(anime, out);
+        assertThat(out.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(anime));
+    }
+
+    @Test
+    public void エスケープが必要な文字とサロゲートペアとnullをJacksonと同じように書き出すこと() throws IOException {
+        List<Anime> animeList = List.of(
+                new Anime(null, "\"quoted\" \\ back/slash", "tab\tnew\nline\u0001"),
+                new Anime(-2147483648, "🍣 SPY×FAMILY", null),
+                new Anime(0, "Ωmega", "é"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnimeJsonWriter.write(animeList, out);
+        assertThat(out.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(animeList));
+    }
+
+    @Test
+    public void バッファより大きい一覧も書き出せること() throws IOException {
+        List<Anime> animeList = IntStream.rangeClosed(1, 1000)
+                .mapToObj(id -> new Anime(id, "SPY×FAMILY " + id, "ホームコメディ"))
+                .toList();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnimeJsonWriter.write(animeList, out);
+        assertThat(out.size()).isGreaterThan(AnimeJsonWriter.BUFFER_SIZE);
+        assertThat(out.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(animeList));
+    }
+
+    @Test
+    public void Animeとその一覧だけを書き出しの対象にすること() {
+        assertThat(AnimeJsonHttpMessageConverter.isAnimeOrAnimeCollection(Anime.class)).isTrue();
+        assertThat(AnimeJsonHttpMessageConverter.isAnimeOrAnimeCollection(
+                new ParameterizedTypeReference<List<Anime>>() {
+                }.getType())).isTrue();
+        assertThat(AnimeJsonHttpMessageConverter.isAnimeOrAnimeCollection(
+                new ParameterizedTypeReference<List<Integer>>() {
+                }.getType())).isFalse();
+        assertThat(AnimeJsonHttpMessageConverter.isAnimeOrAnimeCollection(String.class)).isFalse();
+    }
+
+    @Test
+    public void Anime以外の型と読み込みは引き受けないこと() {
+        AnimeJsonHttpMessageConverter converter = new AnimeJsonHttpMessageConverter(objectMapper);
+        Type animeList = new ParameterizedTypeReference<List<Anime>>() {
+        }.getType();
+
+        assertThat(converter.canWrite(Anime.class, Anime.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(animeList, ArrayList.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(byte[].class, byte[].class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(String.class, String.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(Map.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(Anime.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(animeList, null, MediaType.APPLICATION_JSON)).isFalse();
+    }
+}
@@ -4,16 +4,24 @@ import com.example.demo.entity.Anime;
 import com.github.database.rider.core.api.dataset.DataSet;
 import com.github.database.rider.core.api.dataset.ExpectedDataSet;
 import com.github.database.rider.spring.api.DBRider;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.junit.jupiter.api.Test;
 import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
 
 @DBRider
 @MybatisTest
@@ -22,6 +30,12 @@ public class AnimeMapperTest {
     @Autowired
     AnimeMapper animeMapper;
 
+    @Autowired
+    SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    DataSource dataSource;
+
     @Test
     @DataSet(value = "anime.yml")
     void すべてのアニメが取得できること(){
@@ -41,11 +55,104 @@ public class AnimeMapperTest {
         assertThat(animeList).isEmpty();
     }
 
+    @Test
+    @DataSet(value = "anime.yml")
+    void カーソル未指定の場合に先頭からlimit件のアニメがid順で取得できること() {
+        List<Anime> animeList = animeMapper.findAllAfter(null, 1);
+        assertThat(animeList).containsExactly(new Anime(1, "Kill la Kill", "Action"));
+    }
+
+    @Test
+    @DataSet(value = "anime.yml")
+    void カーソルを指定した場合にそのidより後のアニメが取得できること() {
+        List<Anime> animeList = animeMapper.findAllAfter(1, 10);
+        assertThat(animeList).containsExactly(new Anime(2, "Fairy Tail", "Adventure"));
+    }
+
+    @Test
+    @DataSet(value = "animeForSearch.yml")
+    void ジャンルを指定した場合にそのジャンルのアニメがid順で取得できること() {
+        List<Anime> animeList = animeMapper.search("Action", null, null, null, 10);
+        assertThat(animeList).extracting(Anime::getId).containsExactly(1, 3, 8, 9, 18);
+    }
+
+    @Test
+    @DataSet(value = "animeForSearch.yml")
+    void 名前の前方一致を指定した場合に前方一致するアニメが名前順で取得できること() {
+        List<Anime> animeList = animeMapper.search(null, "Ka", null, null, 10);
+        assertThat(animeList).containsExactly(
+                new Anime(6, "Kaguya-sama", "Comedy"),
+                new Anime(11, "Kanon", "Romance")
+        );
+    }
+
+    @Test
+    @DataSet(value = "animeForSearch.yml")
+    void ジャンルと名前の前方一致とカーソルを組み合わせて取得できること() {
+        List<Anime> animeList = animeMapper.search("Comedy", "K", "K-On!", 19, 10);
+        assertThat(animeList).extracting(Anime::getId).containsExactly(6, 10);
+    }
+
+    @Test
+    @DataSet(value = "animeForSearch.yml")
+    void ジャンル検索がインデックスを使い全件走査にならないこと() {
+        assertIndexScan(explainSearch("Action", null, null, 3));
+    }
+
+    @Test
+    @DataSet(value = "animeForSearch.yml")
+    void 名前の前方一致検索がインデックスを使い全件走査にならないこと() {
+        assertIndexScan(explainSearch(null, "Ka", "Kaguya-sama", 6));
+    }
+
+    @Test
+    @DataSet(value = "animeForSearch.yml")
+    void ジャンルと名前の前方一致の組み合わせ検索がインデックスを使い全件走査にならないこと() {
+        assertIndexScan(explainSearch("Comedy", "K", "K-On!", 19));
+    }
+
+    private List<Map<String, Object>> explainSearch(String genre, String namePrefix, String afterName, Integer after) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("genre", genre);
+        params.put("namePrefix", namePrefix);
+        params.put("afterName", afterName);
+        params.put("after", after);
+        params.put("limit", 11);
+        BoundSql boundSql = sqlSessionFactory.getConfiguration()
+                .getMappedStatement("com.example.demo.mapper.AnimeMapper.search")
+                .getBoundSql(params);
+        Object[] args = boundSql.getParameterMappings().stream()
+                .map(mapping -> params.get(mapping.getProperty()))
+                .toArray();
+        return new JdbcTemplate(dataSource).queryForList("EXPLAIN " + boundSql.getSql(), args);
+    }
+
+    // インデックスの順に読めていればORDER BYのためのfilesortは起きない
+    private static void assertIndexScan(List<Map<String, Object>> plan) {
+        assertThat(plan).isNotEmpty().allSatisfy(row -> {
+            assertThat(row.get("type")).isNotEqualTo("ALL");
+            assertThat(row.get("key")).isNotNull();
+            assertThat(String.valueOf(row.get("Extra"))).doesNotContain("Using filesort");
+        });
+    }
+
+    @Test
+    @DataSet(value = "anime.yml")
+    void すべてのアニメを1件ずつハンドラに渡して読み出せること() {
+        List<Anime> animeList = new ArrayList<>();
+        animeMapper.streamAll(context -> animeList.add(context.getResultObject()));
+        assertThat(animeList).containsExactly(
+                new Anime(1, "Kill la Kill", "Action"),
+                new Anime(2, "Fairy Tail", "Adventure")
+        );
+    }
+
     @Test
     @DataSet(value = "anime.yml")
     void 引数のidに対応したアニメを取得できること() {
         Optional<Anime> anime = animeMapper.findById(1);
         assertThat(anime).contains(new Anime(1, "Kill la Kill", "Action"));
+        assertThat(anime.get().getVersion()).isEqualTo(1);
     }
 
     @Test
@@ -55,6 +162,16 @@ public class AnimeMapperTest {
         assertThat(anime).isEmpty();
     }
 
+    @Test
+    @DataSet(value = "anime.yml")
+    void 複数のidに対応したアニメを1回で取得でき_存在しないidは含まれないこと() {
+        List<Anime> animeList = animeMapper.findByIds(List.of(2, 3, 1));
+        assertThat(animeList).containsExactlyInAnyOrder(
+                new Anime(1, "Kill la Kill", "Action"),
+                new Anime(2, "Fairy Tail", "Adventure")
+        );
+    }
+
     @Test
     @DataSet(value = "anime.yml")
     @ExpectedDataSet(value = "expectedAfterInsertAnime.yml", ignoreCols = "id")
@@ -70,17 +187,66 @@ public class AnimeMapperTest {
         assertTrue(yourNameAnime.getId() > gintamaAnime.getId());
     }
 
+    @Test
+    @DataSet(value = "anime.yml")
+    @ExpectedDataSet(value = "expectedAfterInsertAnime.yml", ignoreCols = "id")
+    void 複数のアニメを1回で登録できること() {
+        Anime gintamaAnime = new Anime("Gintama", "Comedy");
+        Anime yourNameAnime = new Anime("Your Name", "Romantic Fantasy");
+        int insertedCount = animeMapper.createAnimeList(List.of(gintamaAnime, yourNameAnime));
+        assertThat(insertedCount).isEqualTo(2);
+        assertThat(gintamaAnime.getId()).isNotNull();
+        assertThat(yourNameAnime.getId()).isNotNull();
+        assertTrue(yourNameAnime.getId() > gintamaAnime.getId());
+    }
+
     @Test
     @DataSet(value = "anime.yml")
     @ExpectedDataSet(value = "expectedAfterUpdateAnime.yml")
     void アニメが更新できること() {
-        animeMapper.updateAnime(new Anime(1, "No Game No Life", "Fantasy"));
+        Anime anime = new Anime(1, "No Game No Life", "Fantasy");
+        int updatedCount = animeMapper.updateAnime(anime);
+        assertThat(updatedCount).isEqualTo(1);
+        assertThat(anime.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    @DataSet(value = "anime.yml")
+    @ExpectedDataSet(value = "expectedAfterUpdateAnime.yml")
+    void バージョンが一致する時_アニメが更新できること() {
+        int updatedCount = animeMapper.updateAnime(new Anime(1, "No Game No Life", "Fantasy", 1));
+        assertThat(updatedCount).isEqualTo(1);
+    }
+
+    @Test
+    @DataSet(value = "anime.yml")
+    @ExpectedDataSet(value = "anime.yml")
+    void バージョンが一致しない時_更新件数が0であること() {
+        int updatedCount = animeMapper.updateAnime(new Anime(1, "No Game No Life", "Fantasy", 2));
+        assertThat(updatedCount).isEqualTo(0);
+    }
+
+    @Test
+    @DataSet(value = "anime.yml")
+    @ExpectedDataSet(value = "anime.yml")
+    void 更新対象のアニメが存在しない時_更新件数が0であること() {
+        int updatedCount = animeMapper.updateAnime(new Anime(99, "No Game No Life", "Fantasy"));
+        assertThat(updatedCount).isEqualTo(0);
     }
 
     @Test
     @DataSet(value = "anime.yml")
     @ExpectedDataSet(value = "expectedAfterDeleteAnime.yml")
     void アニメが削除できること() {
-        animeMapper.deleteAnime(1);
+        int deletedCount = animeMapper.deleteAnime(1);
+        assertThat(deletedCount).isEqualTo(1);
+    }
+
+    @Test
+    @DataSet(value = "anime.yml")
+    @ExpectedDataSet(value = "anime.yml")
+    void 削除対象のアニメが存在しない時_削除件数が0であること() {
+        int deletedCount = animeMapper.deleteAnime(99);
+        assertThat(deletedCount).isEqualTo(0);
     }
 }
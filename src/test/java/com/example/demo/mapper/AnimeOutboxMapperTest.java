@@ -0,0 +1,76 @@
+package com.example.demo.mapper;
+
+import com.example.demo.entity.AnimeChange;
+import com.github.database.rider.core.api.dataset.DataSet;
+import com.github.database.rider.spring.api.DBRider;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DBRider
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class AnimeOutboxMapperTest {
+    @Autowired
+    AnimeOutboxMapper animeOutboxMapper;
+
+    @Test
+    @DataSet(value = "animeOutbox.yml")
+    void 指定したseqより後の変更履歴がseq順で取得できること() {
+        List<AnimeChange> changes = animeOutboxMapper.findAfter(1, null, 10);
+        assertThat(changes).containsExactly(
+                new AnimeChange(2L, "UPDATED", 3, "Gintama.", "Comedy", 2),
+                new AnimeChange(3L, "DELETED", 3, null, null, null)
+        );
+    }
+
+    @Test
+    @DataSet(value = "animeOutbox.yml")
+    void 上限のseqを指定した場合にそれ以下の変更履歴だけが取得できること() {
+        List<AnimeChange> changes = animeOutboxMapper.findAfter(0, 2L, 10);
+        assertThat(changes).extracting(AnimeChange::getSeq).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DataSet(value = "animeOutbox.yml")
+    void 最後のseqが取得できること() {
+        assertThat(animeOutboxMapper.findLastSeq()).isEqualTo(3);
+    }
+
+    @Test
+    @DataSet(value = "animeOutbox.yml")
+    void 採番した範囲の最後のseqが取得できること() {
+        animeOutboxMapper.reserveSeq(2);
+        assertThat(animeOutboxMapper.findReservedSeq()).isEqualTo(5);
+        animeOutboxMapper.reserveSeq(1);
+        assertThat(animeOutboxMapper.findReservedSeq()).isEqualTo(6);
+    }
+
+    @Test
+    @DataSet(value = "animeOutbox.yml")
+    void 採番したseqで変更履歴を追記できること() {
+        animeOutboxMapper.reserveSeq(2);
+        long lastSeq = animeOutboxMapper.findReservedSeq();
+        int insertedCount = animeOutboxMapper.insertAll(List.of(
+                new AnimeChange(lastSeq - 1, "CREATED", 4, "Your Name", "Romantic Fantasy", null),
+                new AnimeChange(lastSeq, "DELETED", 1, null, null, null)));
+        assertThat(insertedCount).isEqualTo(2);
+        List<AnimeChange> changes = animeOutboxMapper.findAfter(3, null, 10);
+        assertThat(changes).extracting(AnimeChange::getSeq).containsExactly(4L, 5L);
+        assertThat(changes).extracting(AnimeChange::getType).containsExactly("CREATED", "DELETED");
+    }
+
+    @Test
+    @DataSet(value = "animeOutbox.yml")
+    void 保存期間を過ぎた変更履歴だけが削除されること() {
+        assertThat(animeOutboxMapper.deleteOlderThan(3600, 1)).isEqualTo(1);
+        assertThat(animeOutboxMapper.deleteOlderThan(3600, 10)).isEqualTo(1);
+        assertThat(animeOutboxMapper.findAfter(0, null, 10)).extracting(AnimeChange::getSeq).containsExactly(3L);
+        assertThat(animeOutboxMapper.findLastSeq()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class HikariSaturationMetricsTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void 使用中の接続数と最大接続数の比がプール名のタグ付きで記録されること() {
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+        doReturn("anime").when(dataSource).getPoolName();
+        doReturn(pool).when(dataSource).getHikariPoolMXBean();
+        doReturn(10).when(dataSource).getMaximumPoolSize();
+        doReturn(4).when(pool).getActiveConnections();
+        ObjectProvider<HikariDataSource> dataSources = mock(ObjectProvider.class);
+        doReturn(Stream.of(dataSource)).when(dataSources).orderedStream();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        new HikariSaturationMetrics(dataSources).bindTo(meterRegistry);
+
+        assertThat(meterRegistry.get(HikariSaturationMetrics.METRIC_NAME).tag("pool", "anime").gauge().value())
+                .isEqualTo(0.4);
+    }
+
+    @Test
+    void プールが開始していないときは0を返すこと() {
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        assertThat(HikariSaturationMetrics.utilization(dataSource)).isZero();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class StatementMetricsInterceptorTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    StatementMetricsInterceptor interceptor = new StatementMetricsInterceptor(meterRegistry);
+
+    MappedStatement mappedStatement = new MappedStatement.Builder(
+            new Configuration(),
+            "com.example.demo.mapper.AnimeMapper.updateAnime",
+            mock(SqlSource.class),
+            SqlCommandType.UPDATE).build();
+
+    @Test
+    void ステートメントの実行時間がステートメント名のタグ付きで記録されること() throws Throwable {
+        Executor executor = mock(Executor.class);
+        doReturn(1).when(executor).update(mappedStatement, "param");
+
+        Object actual = interceptor.intercept(new Invocation(executor,
+                Executor.class.getMethod("update", MappedStatement.class, Object.class),
+                new Object[]{mappedStatement, "param"}));
+
+        assertThat(actual).isEqualTo(1);
+        Timer timer = meterRegistry.find("mybatis.statement")
+                .tags("statement", "AnimeMapper.updateAnime", "command", "update", "outcome", "success")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void ステートメントが失敗したときにerrorとして記録されること() throws Exception {
+        Executor executor = mock(Executor.class);
+        doThrow(new SQLException("connection refused")).when(executor).update(mappedStatement, "param");
+
+        assertThatThrownBy(() -> interceptor.intercept(new Invocation(executor,
+                Executor.class.getMethod("update", MappedStatement.class, Object.class),
+                new Object[]{mappedStatement, "param"})))
+                .isInstanceOf(InvocationTargetException.class);
+
+        Timer timer = meterRegistry.find("mybatis.statement")
+                .tags("statement", "AnimeMapper.updateAnime", "outcome", "error")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+}
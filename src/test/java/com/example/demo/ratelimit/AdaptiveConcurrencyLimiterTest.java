@@ -0,0 +1,81 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.config.LoadSheddingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    long now = System.nanoTime();
+
+    AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        LoadSheddingProperties properties = new LoadSheddingProperties();
+        properties.setInitialLimit(initialLimit);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(100);
+        properties.setWindow(Duration.ofNanos(1));
+        return new AdaptiveConcurrencyLimiter(properties, meterRegistry);
+    }
+
+    // 1つのwindowを指定した遅延のサンプルで埋めて締める
+    void window(AdaptiveConcurrencyLimiter limiter, long latencyMillis) {
+        now += TimeUnit.SECONDS.toNanos(1);
+        limiter.onSample(TimeUnit.MILLISECONDS.toNanos(latencyMillis), now);
+    }
+
+    @Test
+    public void 上限を超える同時実行を拒否し解放すると再び受け付けること() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release();
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(meterRegistry.get("anime.load_shedding.rejected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("anime.load_shedding.inflight").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    public void 遅延が長期平均より大きく伸びたときに上限を下げること() {
+        AdaptiveConcurrencyLimiter limiter = limiter(50);
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 5);
+        }
+        int before = limiter.getLimit();
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 50);
+        }
+        assertThat(limiter.getLimit()).isLessThan(before);
+        assertThat(meterRegistry.get("anime.load_shedding.limit").gauge().value()).isEqualTo(limiter.getLimit());
+    }
+
+    @Test
+    public void 遅延が安定していて上限近くまで使われているときに上限を上げること() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+        }
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 5);
+        }
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    public void 使われていないときは遅延が安定していても上限を上げないこと() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 5);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+}
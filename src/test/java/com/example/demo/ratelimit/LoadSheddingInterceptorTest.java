@@ -0,0 +1,73 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.config.LoadSheddingProperties;
+import com.example.demo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoadSheddingInterceptorTest {
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    AdaptiveConcurrencyLimiter limiter() {
+        LoadSheddingProperties properties = new LoadSheddingProperties();
+        properties.setInitialLimit(1);
+        properties.setMinLimit(1);
+        return new AdaptiveConcurrencyLimiter(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void 同時実行数が上限に達しているときにRetryAfterを付けてServiceUnavailableExceptionをthrowすること() {
+        LoadSheddingInterceptor interceptor = new LoadSheddingInterceptor(limiter(), 1);
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/anime"), response, null)).isTrue();
+
+        assertThatThrownBy(() -> interceptor.preHandle(new MockHttpServletRequest("PATCH", "/api/anime/2"), response, null))
+                .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    @Test
+    public void id単位の参照は同時実行数が上限に達していても落とさないこと() {
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        LoadSheddingInterceptor interceptor = new LoadSheddingInterceptor(limiter, 1);
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/anime"), response, null)).isTrue();
+
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/anime/1");
+        assertThat(interceptor.preHandle(read, response, null)).isTrue();
+        interceptor.afterCompletion(read, response, null, null);
+
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    public void 検索と複数件取得と変更履歴は同時実行数が上限に達しているときに落とすこと() {
+        LoadSheddingInterceptor interceptor = new LoadSheddingInterceptor(limiter(), 1);
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/anime/1"), response, null)).isTrue();
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/anime/search"), response, null)).isTrue();
+
+        MockHttpServletRequest ids = new MockHttpServletRequest("GET", "/api/anime");
+        ids.setParameter("ids", "1,2");
+        assertThatThrownBy(() -> interceptor.preHandle(ids, response, null)).isInstanceOf(ServiceUnavailableException.class);
+        assertThatThrownBy(() -> interceptor.preHandle(new MockHttpServletRequest("GET", "/api/anime/changes"), response, null))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    public void 完了したときと非同期処理に切り替わったときに枠を1回だけ返すこと() {
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        LoadSheddingInterceptor interceptor = new LoadSheddingInterceptor(limiter, 1);
+        MockHttpServletRequest stream = new MockHttpServletRequest("GET", "/api/anime/export");
+        interceptor.preHandle(stream, response, null);
+
+        interceptor.afterConcurrentHandlingStarted(stream, response, null);
+        interceptor.afterCompletion(stream, response, null, null);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.config.RateLimitProperties;
+import com.example.demo.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.DispatcherType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitInterceptorTest {
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    RateLimitInterceptor interceptor() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setList(new RateLimitProperties.Limit(0.5, 1));
+        properties.setMaxStreamsPerClient(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new RateLimitInterceptor(new TokenBucketRateLimiter(properties, meterRegistry),
+                new StreamConcurrencyLimiter(properties, meterRegistry));
+    }
+
+    static MockHttpServletRequest request(String method, String uri, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (client != null) {
+            request.setRemoteAddr(client);
+        }
+        return request;
+    }
+
+    @Test
+    public void 処理の重さでエンドポイントを分類すること() {
+        assertThat(EndpointClass.of(request("GET", "/api/anime", null))).isEqualTo(EndpointClass.LIST);
+        assertThat(EndpointClass.of(request("GET", "/api/anime/", null))).isEqualTo(EndpointClass.LIST);
+        assertThat(EndpointClass.of(request("GET", "/api/anime/export", null))).isEqualTo(EndpointClass.LIST);
+        assertThat(EndpointClass.of(request("GET", "/api/anime/1", null))).isEqualTo(EndpointClass.READ);
+        assertThat(EndpointClass.of(request("GET", "/api/anime/changes", null))).isEqualTo(EndpointClass.QUERY);
+        assertThat(EndpointClass.of(request("GET", "/api/anime/search", null))).isEqualTo(EndpointClass.QUERY);
+        MockHttpServletRequest ids = request("GET", "/api/anime", null);
+        ids.setParameter("ids", "1,2,3");
+        assertThat(EndpointClass.of(ids)).isEqualTo(EndpointClass.QUERY);
+        assertThat(EndpointClass.of(request("GET", "/api/anime/changes/stream", null))).isEqualTo(EndpointClass.STREAM);
+        assertThat(EndpointClass.of(request("POST", "/api/anime", null))).isEqualTo(EndpointClass.WRITE);
+        assertThat(EndpointClass.of(request("DELETE", "/api/anime/1", null))).isEqualTo(EndpointClass.WRITE);
+    }
+
+    @Test
+    public void 上限を超えたときにRetryAfterを付けてTooManyRequestsExceptionをthrowすること() {
+        RateLimitInterceptor interceptor = interceptor();
+        assertThat(interceptor.preHandle(request("GET", "/api/anime", "a"), response, null)).isTrue();
+
+        assertThatThrownBy(() -> interceptor.preHandle(request("GET", "/api/anime", "a"), response, null))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+    }
+
+    @Test
+    public void ストリームは同時に開いている数で制限し閉じたときに枠を返すこと() {
+        RateLimitInterceptor interceptor = interceptor();
+        MockHttpServletRequest first = request("GET", "/api/anime/changes/stream", "a");
+        assertThat(interceptor.preHandle(first, response, null)).isTrue();
+
+        assertThatThrownBy(() -> interceptor.preHandle(request("GET", "/api/anime/changes/stream", "a"), response, null))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(interceptor.preHandle(request("GET", "/api/anime/changes/stream", "b"), response, null)).isTrue();
+
+        interceptor.afterCompletion(first, response, null, null);
+        interceptor.afterCompletion(first, response, null, null);
+        assertThat(interceptor.preHandle(request("GET", "/api/anime/changes/stream", "a"), response, null)).isTrue();
+        assertThatThrownBy(() -> interceptor.preHandle(request("GET", "/api/anime/changes/stream", "a"), response, null))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    public void 接続元アドレスごとに上限を掛けること() {
+        RateLimitInterceptor interceptor = interceptor();
+        assertThat(interceptor.preHandle(request("GET", "/api/anime", "192.0.2.1"), response, null)).isTrue();
+        assertThat(interceptor.preHandle(request("GET", "/api/anime", "192.0.2.2"), response, null)).isTrue();
+    }
+
+    @Test
+    public void ヘッダで指定したクライアントIDは使わないこと() {
+        RateLimitInterceptor interceptor = interceptor();
+        MockHttpServletRequest first = request("GET", "/api/anime", "192.0.2.1");
+        first.addHeader("X-Client-Id", "a");
+        MockHttpServletRequest second = request("GET", "/api/anime", "192.0.2.1");
+        second.addHeader("X-Client-Id", "b");
+        assertThat(interceptor.preHandle(first, response, null)).isTrue();
+
+        assertThatThrownBy(() -> interceptor.preHandle(second, response, null))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    public void IPv6アドレスは64ビットのプレフィックスごとにまとめること() {
+        assertThat(RateLimitInterceptor.clientOf("2001:db8:0:1::1"))
+                .isEqualTo(RateLimitInterceptor.clientOf("2001:db8:0:1:ffff:ffff:ffff:ffff"))
+                .isEqualTo("20010db800000001::/64");
+        assertThat(RateLimitInterceptor.clientOf("2001:db8:0:2::1")).isNotEqualTo(RateLimitInterceptor.clientOf("2001:db8:0:1::1"));
+        assertThat(RateLimitInterceptor.clientOf("192.0.2.1")).isEqualTo("192.0.2.1");
+    }
+
+    @Test
+    public void 非同期処理の再ディスパッチは数えないこと() {
+        RateLimitInterceptor interceptor = interceptor();
+        assertThat(interceptor.preHandle(request("GET", "/api/anime", "a"), response, null)).isTrue();
+        MockHttpServletRequest asyncDispatch = request("GET", "/api/anime", "a");
+        asyncDispatch.setDispatcherType(DispatcherType.ASYNC);
+
+        assertThat(interceptor.preHandle(asyncDispatch, response, null)).isTrue();
+    }
+}
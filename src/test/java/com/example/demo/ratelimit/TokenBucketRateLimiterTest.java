@@ -0,0 +1,73 @@
+package com.example.demo.ratelimit;
+
+import com.example.demo.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    TokenBucketRateLimiter rateLimiter() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setList(new RateLimitProperties.Limit(1, 3));
+        properties.setRead(new RateLimitProperties.Limit(100, 100));
+        return new TokenBucketRateLimiter(properties, meterRegistry);
+    }
+
+    @Test
+    public void バースト分までは続けて受け付けそれを超えると待ち時間を返すこと() {
+        TokenBucketRateLimiter rateLimiter = rateLimiter();
+        long now = 0;
+        assertThat(rateLimiter.tryAcquire("client", EndpointClass.LIST, now)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", EndpointClass.LIST, now)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", EndpointClass.LIST, now)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", EndpointClass.LIST, now)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(meterRegistry.get("anime.rate_limit.requests").tags("endpoint", "list", "outcome", "allowed").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("anime.rate_limit.requests").tags("endpoint", "list", "outcome", "rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void 時間が経つと補充された分だけ受け付けること() {
+        TokenBucketRateLimiter rateLimiter = rateLimiter();
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("client", EndpointClass.LIST, 0);
+        }
+        long oneSecondLater = TimeUnit.SECONDS.toNanos(1);
+        assertThat(rateLimiter.tryAcquire("client", EndpointClass.LIST, oneSecondLater)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", EndpointClass.LIST, oneSecondLater)).isPositive();
+    }
+
+    @Test
+    public void クライアントとエンドポイントの種類ごとに別のバケットを使うこと() {
+        TokenBucketRateLimiter rateLimiter = rateLimiter();
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("client", EndpointClass.LIST, 0);
+        }
+        assertThat(rateLimiter.tryAcquire("client", EndpointClass.LIST, 0)).isPositive();
+        assertThat(rateLimiter.tryAcquire("other", EndpointClass.LIST, 0)).isZero();
+        assertThat(rateLimiter.tryAcquire("client", EndpointClass.READ, 0)).isZero();
+    }
+
+    @Test
+    public void 秒間の許可数が0以下の設定は起動時に拒否すること() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(RateLimitPropertiesConfiguration.class)
+                .withPropertyValues("anime.rate-limit.read.permits-per-second=0")
+                .run(context -> assertThat(context).hasFailed());
+        new ApplicationContextRunner()
+                .withUserConfiguration(RateLimitPropertiesConfiguration.class)
+                .withPropertyValues("anime.rate-limit.read.permits-per-second=0.5")
+                .run(context -> assertThat(context).hasNotFailed());
+    }
+
+    @EnableConfigurationProperties(RateLimitProperties.class)
+    static class RateLimitPropertiesConfiguration {
+    }
+}
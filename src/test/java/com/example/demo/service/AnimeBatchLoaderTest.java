@@ -0,0 +1,136 @@
+package com.example.demo.service;
+
+import com.example.demo.config.AnimeBatchLoaderProperties;
+import com.example.demo.entity.Anime;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.mapper.AnimeMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AnimeBatchLoaderTest {
+
+    AnimeMapper animeMapper = mock(AnimeMapper.class);
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    AnimeBatchLoader batchLoader;
+
+    AnimeBatchLoader batchLoader(Duration window, int maxBatchSize) {
+        AnimeBatchLoaderProperties properties = new AnimeBatchLoaderProperties();
+        properties.setEnabled(true);
+        properties.setWindow(window);
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setTimeout(Duration.ofMillis(200));
+        doAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id <= 2).map(id -> new Anime(id, "name" + id, "genre")).toList();
+        }).when(animeMapper).findByIds(anyCollection());
+        batchLoader = new AnimeBatchLoader(animeMapper, properties, meterRegistry);
+        return batchLoader;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batchLoader != null) {
+            batchLoader.destroy();
+        }
+    }
+
+    @Test
+    public void 時間窓の間に届いた要求を1回の問い合わせにまとめること() {
+        AnimeBatchLoader batchLoader = batchLoader(Duration.ofMillis(200), 100);
+        CompletableFuture<Optional<Anime>> first = batchLoader.load(1);
+        CompletableFuture<Optional<Anime>> second = batchLoader.load(2);
+        CompletableFuture<Optional<Anime>> missing = batchLoader.load(3);
+
+        assertThat(first.join()).contains(new Anime(1, "name1", "genre"));
+        assertThat(second.join()).contains(new Anime(2, "name2", "genre"));
+        assertThat(missing.join()).isEmpty();
+        verify(animeMapper, times(1)).findByIds(Set.of(1, 2, 3));
+        assertThat(meterRegistry.get("anime.batch_loader.batch.size").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    public void 同じ時間窓で同じidを要求したときに同じ結果を共有すること() {
+        AnimeBatchLoader batchLoader = batchLoader(Duration.ofMillis(200), 100);
+        CompletableFuture<Optional<Anime>> first = batchLoader.load(1);
+        CompletableFuture<Optional<Anime>> second = batchLoader.load(1);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.join()).contains(new Anime(1, "name1", "genre"));
+        verify(animeMapper, times(1)).findByIds(Set.of(1));
+    }
+
+    @Test
+    public void 件数が上限に達したときに時間窓を待たずに問い合わせること() {
+        AnimeBatchLoader batchLoader = batchLoader(Duration.ofMinutes(1), 2);
+        CompletableFuture<Optional<Anime>> first = batchLoader.load(1);
+        CompletableFuture<Optional<Anime>> second = batchLoader.load(2);
+
+        assertThat(first.orTimeout(1, TimeUnit.SECONDS).join()).contains(new Anime(1, "name1", "genre"));
+        assertThat(second.join()).contains(new Anime(2, "name2", "genre"));
+    }
+
+    @Test
+    public void 問い合わせに失敗したときにまとめた要求すべてが失敗すること() {
+        AnimeBatchLoader batchLoader = batchLoader(Duration.ofMillis(10), 100);
+        doThrow(new IllegalStateException("db down")).when(animeMapper).findByIds(anyCollection());
+        CompletableFuture<Optional<Anime>> first = batchLoader.load(1);
+        CompletableFuture<Optional<Anime>> second = batchLoader.load(2);
+
+        assertThatThrownBy(first::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void 問い合わせでErrorが発生したときにもまとめた要求すべてが失敗すること() {
+        AnimeBatchLoader batchLoader = batchLoader(Duration.ofMillis(10), 100);
+        doThrow(new StackOverflowError()).when(animeMapper).findByIds(anyCollection());
+        CompletableFuture<Optional<Anime>> first = batchLoader.load(1);
+        CompletableFuture<Optional<Anime>> second = batchLoader.load(2);
+
+        assertThatThrownBy(first::join).hasCauseInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(StackOverflowError.class);
+    }
+
+    @Test
+    public void 問い合わせがtimeoutを超えたときにServiceUnavailableExceptionをthrowすること() throws InterruptedException {
+        AnimeBatchLoader batchLoader = batchLoader(Duration.ofMillis(10), 100);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return List.of();
+        }).when(animeMapper).findByIds(anyCollection());
+        try {
+            assertThatThrownBy(() -> batchLoader.get(1)).isInstanceOf(ServiceUnavailableException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void 取得した結果を待って返すこと() {
+        AnimeBatchLoader batchLoader = batchLoader(Duration.ofMillis(10), 100);
+        assertThat(batchLoader.get(1)).isEqualTo(Optional.of(new Anime(1, "name1", "genre")));
+        assertThat(batchLoader.get(3)).isEmpty();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.service;
+
+import com.example.demo.config.AnimeCacheProperties;
+import com.example.demo.entity.Anime;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnimeCacheTest {
+
+    AnimeCache animeCache = new AnimeCache(new AnimeCacheProperties());
+
+    @Test
+    public void まとめて取得した結果をキャッシュすること() {
+        Map<Integer, Optional<Anime>> actual = animeCache.getAll(List.of(1, 2), ids -> load(ids.size(), "before"));
+        assertThat(actual).containsEntry(1, Optional.of(new Anime(1, "before", "genre")));
+        assertThat(animeCache.getIfPresent(1)).isEqualTo(Optional.of(new Anime(1, "before", "genre")));
+        assertThat(animeCache.getIfPresent(2)).isEqualTo(Optional.of(new Anime(2, "before", "genre")));
+    }
+
+    @Test
+    public void まとめて取得している間に破棄されたidの結果はキャッシュしないこと() {
+        Map<Integer, Optional<Anime>> actual = animeCache.getAll(List.of(1, 2), ids -> {
+            Map<Integer, Optional<Anime>> loaded = load(ids.size(), "before");
+            animeCache.invalidate(1);
+            return loaded;
+        });
+        assertThat(actual).containsEntry(1, Optional.of(new Anime(1, "before", "genre")));
+        assertThat(animeCache.getIfPresent(1)).isNull();
+        assertThat(animeCache.getIfPresent(2)).isEqualTo(Optional.of(new Anime(2, "before", "genre")));
+    }
+
+    @Test
+    public void まとめて取得している間にすべて破棄されたときは何もキャッシュしないこと() {
+        animeCache.getAll(List.of(1, 2), ids -> {
+            Map<Integer, Optional<Anime>> loaded = load(ids.size(), "before");
+            animeCache.invalidateAll();
+            return loaded;
+        });
+        assertThat(animeCache.getIfPresent(1)).isNull();
+        assertThat(animeCache.getIfPresent(2)).isNull();
+    }
+
+    private static Map<Integer, Optional<Anime>> load(int size, String name) {
+        Map<Integer, Optional<Anime>> result = new HashMap<>();
+        for (int id = 1; id <= size; id++) {
+            result.put(id, Optional.of(new Anime(id, name, "genre")));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.demo.service;
+
+import com.example.demo.config.AnimeChangesProperties;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.exception.GoneException;
+import com.example.demo.mapper.AnimeOutboxMapper;
+import com.example.demo.response.AnimeChangePage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AnimeChangeRelayTest {
+
+    AnimeOutboxMapper outboxMapper = mock(AnimeOutboxMapper.class);
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // 送信はポーリングするスレッドでそのまま行う
+    AnimeChangeRelay relay() {
+        return relay(Runnable::run);
+    }
+
+    AnimeChangeRelay relay(Executor sender) {
+        AnimeChangesProperties properties = new AnimeChangesProperties();
+        properties.setBatchSize(500);
+        properties.setRetention(Duration.ofDays(7));
+        return new AnimeChangeRelay(outboxMapper, properties, meterRegistry, sender);
+    }
+
+    static AnimeChange change(long seq) {
+        return new AnimeChange(seq, "DELETED", (int) seq, null, null, null);
+    }
+
+    static class RecordingSubscriber implements AnimeChangeRelay.Subscriber {
+        final List<Long> received = new ArrayList<>();
+        boolean completed;
+
+        @Override
+        public void send(AnimeChange change) throws IOException {
+            received.add(change.getSeq());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    public void 購読した後に追記された変更をseq順に配信すること() {
+        AnimeChangeRelay relay = relay();
+        doReturn(3L).when(outboxMapper).findLastSeq();
+        doReturn(List.of(change(4), change(5))).when(outboxMapper).findAfter(3, null, 500);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        relay.subscribe(null, subscriber);
+
+        relay.poll();
+
+        assertThat(subscriber.received).containsExactly(4L, 5L);
+        assertThat(meterRegistry.get("anime.changes.published").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void 過去のseqから購読したときはDBから読み直して追いつかせること() {
+        AnimeChangeRelay relay = relay();
+        doReturn(3L).when(outboxMapper).findLastSeq();
+        doReturn(List.of()).when(outboxMapper).findAfter(3, null, 500);
+        doReturn(List.of(change(2), change(3))).when(outboxMapper).findAfter(1, 3L, 500);
+        doReturn(List.of(change(2))).when(outboxMapper).findAfter(1, 3L, 1);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        relay.subscribe(1L, subscriber);
+
+        relay.poll();
+
+        assertThat(subscriber.received).containsExactly(2L, 3L);
+    }
+
+    @Test
+    public void 送信に失敗した購読者には以降配信しないこと() {
+        AnimeChangeRelay relay = relay();
+        doReturn(3L).when(outboxMapper).findLastSeq();
+        doReturn(List.of(change(4))).when(outboxMapper).findAfter(3, null, 500);
+        doReturn(List.of(change(5))).when(outboxMapper).findAfter(4, null, 500);
+        List<Long> received = new ArrayList<>();
+        RecordingSubscriber failing = new RecordingSubscriber() {
+            @Override
+            public void send(AnimeChange change) throws IOException {
+                received.add(change.getSeq());
+                throw new IOException("broken pipe");
+            }
+        };
+        relay.subscribe(null, failing);
+
+        relay.poll();
+        relay.poll();
+
+        assertThat(received).containsExactly(4L);
+        assertThat(failing.completed).isTrue();
+        assertThat(meterRegistry.get("anime.changes.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    public void 変更履歴の取得は配信済みの範囲までに限ること() {
+        AnimeChangeRelay relay = relay();
+        assertThat(relay.changesSince(0, 100)).isEqualTo(new AnimeChangePage(List.of(), 0));
+
+        doReturn(3L).when(outboxMapper).findLastSeq();
+        doReturn(List.of()).when(outboxMapper).findAfter(3, null, 500);
+        relay.poll();
+        doReturn(List.of(change(1), change(2), change(3))).when(outboxMapper).findAfter(0, 3L, 100);
+
+        assertThat(relay.changesSince(0, 100)).isEqualTo(new AnimeChangePage(List.of(change(1), change(2), change(3)), 3));
+    }
+
+    @Test
+    public void 送信が詰まっている購読者がいても他の購読者への配信を止めないこと() throws InterruptedException {
+        ExecutorService sender = Executors.newCachedThreadPool();
+        try {
+            AnimeChangeRelay relay = relay(sender);
+            doReturn(3L).when(outboxMapper).findLastSeq();
+            doReturn(List.of(change(4), change(5))).when(outboxMapper).findAfter(3, null, 500);
+            CountDownLatch release = new CountDownLatch(1);
+            relay.subscribe(null, new RecordingSubscriber() {
+                @Override
+                public void send(AnimeChange change) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            CountDownLatch delivered = new CountDownLatch(2);
+            relay.subscribe(null, new RecordingSubscriber() {
+                @Override
+                public void send(AnimeChange change) {
+                    delivered.countDown();
+                }
+            });
+
+            relay.poll();
+
+            assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+            release.countDown();
+        } finally {
+            sender.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 保存期間を過ぎて削除された範囲を要求したときにGoneExceptionをthrowすること() {
+        AnimeChangeRelay relay = relay();
+        doReturn(10L).when(outboxMapper).findLastSeq();
+        doReturn(List.of()).when(outboxMapper).findAfter(10, null, 500);
+        relay.poll();
+        doReturn(List.of(change(6), change(7))).when(outboxMapper).findAfter(2, 10L, 100);
+        doReturn(List.of()).when(outboxMapper).findAfter(8, 10L, 100);
+
+        assertThatThrownBy(() -> relay.changesSince(2, 100)).isInstanceOf(GoneException.class);
+        assertThatThrownBy(() -> relay.changesSince(8, 100)).isInstanceOf(GoneException.class);
+        assertThat(relay.changesSince(10, 100)).isEqualTo(new AnimeChangePage(List.of(), 10));
+    }
+
+    @Test
+    public void 保存期間を過ぎて削除された範囲から購読しようとしたときにGoneExceptionをthrowすること() {
+        AnimeChangeRelay relay = relay();
+        doReturn(10L).when(outboxMapper).findLastSeq();
+        doReturn(List.of(change(6))).when(outboxMapper).findAfter(2, 10L, 1);
+
+        assertThatThrownBy(() -> relay.subscribe(2L, new RecordingSubscriber())).isInstanceOf(GoneException.class);
+        assertThat(meterRegistry.get("anime.changes.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    public void 保存期間を過ぎた変更履歴を削除し終わるまで一定件数ずつ削除すること() {
+        AnimeChangeRelay relay = relay();
+        doReturn(AnimeChangeRelay.PURGE_CHUNK_SIZE, 10).when(outboxMapper)
+                .deleteOlderThan(Duration.ofDays(7).toSeconds(), AnimeChangeRelay.PURGE_CHUNK_SIZE);
+
+        relay.purge();
+
+        verify(outboxMapper, times(2)).deleteOlderThan(Duration.ofDays(7).toSeconds(), AnimeChangeRelay.PURGE_CHUNK_SIZE);
+        assertThat(meterRegistry.get("anime.changes.purged").counter().count()).isEqualTo(AnimeChangeRelay.PURGE_CHUNK_SIZE + 10);
+    }
+}
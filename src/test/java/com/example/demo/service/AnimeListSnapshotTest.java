@@ -0,0 +1,41 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AnimeListSnapshotTest {
+
+    AnimeService animeService = mock(AnimeService.class);
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    AnimeListSnapshot snapshot(boolean fastWriter) {
+        return new AnimeListSnapshot(animeService, objectMapper, DataSize.ofKilobytes(2), Duration.ofSeconds(5), fastWriter);
+    }
+
+    @Test
+    public void 高速書き出しが有効なときもJacksonと同じJSONと変更履歴のseqから作ったETagを持つこと() throws Exception {
+        List<Anime> animeList = List.of(new Anime(1, "鬼滅の刃", "ダークファンタジー", 3), new Anime(2, "Kill la Kill", "Action"));
+        doReturn(7L).when(animeService).lastChangeSeq();
+        doReturn(animeList).when(animeService).getAllAnime(7);
+
+        AnimeListSnapshot.Snapshot actual = snapshot(true).get();
+
+        assertThat(actual.json()).isEqualTo(objectMapper.writeValueAsBytes(animeList));
+        assertThat(actual.animeList()).isEqualTo(animeList);
+        assertThat(actual.etag()).isEqualTo("\"list-7\"");
+        verify(animeService, times(1)).lastChangeSeq();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnimeSearchIndexTest {
+
+    AnimeSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AnimeSearchIndex();
+        index.put(new Anime(1, "鬼滅の刃", "Action"));
+        index.put(new Anime(2, "鬼滅の刃 無限列車編", "Action"));
+        index.put(new Anime(3, "SPY×FAMILY", "Comedy"));
+        index.put(new Anime(4, "Your Name", "Romantic Fantasy"));
+    }
+
+    @Test
+    public void 日本語の部分文字列で検索できること() {
+        List<Anime> actual = index.search("滅の", 10);
+        assertThat(actual).extracting(Anime::getId).containsExactly(1, 2);
+    }
+
+    @Test
+    public void 一文字のクエリでも長い名前に部分一致すること() {
+        assertThat(index.search("鬼", 10)).extracting(Anime::getId).containsExactly(1, 2);
+        assertThat(index.search("列", 10)).extracting(Anime::getId).containsExactly(2);
+    }
+
+    @Test
+    public void 名前を更新すると古い名前の一文字では検索されなくなること() {
+        index.put(new Anime(1, "Dr.STONE", "Action"));
+        assertThat(index.search("刃", 10)).extracting(Anime::getId).containsExactly(2);
+    }
+
+    @Test
+    public void 全角と半角や大文字と小文字を区別せずに検索できること() {
+        List<Anime> actual = index.search("ｓｐｙ", 10);
+        assertThat(actual).extracting(Anime::getId).containsExactly(3);
+    }
+
+    @Test
+    public void 一致するbigramが多い順に並び同数のときは名前が短い順に並ぶこと() {
+        List<Anime> actual = index.search("無限列車 の刃", 10);
+        assertThat(actual).extracting(Anime::getId).containsExactly(2, 1);
+        assertThat(index.search("鬼滅", 10)).extracting(Anime::getId).containsExactly(1, 2);
+    }
+
+    @Test
+    public void 上限件数までしか返さないこと() {
+        assertThat(index.search("鬼滅", 1)).extracting(Anime::getId).containsExactly(1);
+    }
+
+    @Test
+    public void 名前を更新すると古い名前では検索されなくなること() {
+        index.put(new Anime(4, "君の名は。", "Romantic Fantasy"));
+        assertThat(index.search("your", 10)).isEmpty();
+        assertThat(index.search("名は", 10)).extracting(Anime::getId).containsExactly(4);
+    }
+
+    @Test
+    public void 削除したアニメは検索されないこと() {
+        index.remove(1);
+        assertThat(index.search("鬼滅", 10)).extracting(Anime::getId).containsExactly(2);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void 空のクエリでは何も返さないこと() {
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+}
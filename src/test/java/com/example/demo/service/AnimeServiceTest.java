@@ -1,21 +1,42 @@
 package com.example.demo.service;
 
+import com.example.demo.config.AnimeCacheProperties;
+import com.example.demo.config.AnimeSingleFlightProperties;
 import com.example.demo.entity.Anime;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.exception.PreconditionFailedException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.mapper.AnimeMapper;
+import com.example.demo.mapper.AnimeOutboxMapper;
+import com.example.demo.response.AnimeMultiGet;
+import com.example.demo.response.AnimePage;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,10 +48,93 @@ class AnimeServiceTest {
     @Mock
     AnimeMapper animeMapper;
 
+    @Spy
+    AnimeCache animeCache = new AnimeCache(new AnimeCacheProperties());
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    AnimeOutboxMapper animeOutboxMapper;
+
+    @Mock
+    AnimeBatchLoader batchLoader;
+
+    @Spy
+    AnimeSingleFlightProperties singleFlightProperties = new AnimeSingleFlightProperties();
+
     @Test
     public void アニメが全件取得できること() {
         doReturn(List.of(new Anime(1, "abc", "def"), new Anime(2, "ghi", "jkl"))).when(animeMapper).findAll();
-        List<Anime> actual = animeService.getAllAnime();
+        List<Anime> actual = animeService.getAllAnime(3);
+        assertThat(actual).isEqualTo(List.of(new Anime(1, "abc", "def"), new Anime(2, "ghi", "jkl")));
+    }
+
+    @Test
+    public void 次のページが存在するときに次のカーソルを含むページを返すこと() {
+        doReturn(List.of(new Anime(1, "abc", "def"), new Anime(2, "ghi", "jkl"))).when(animeMapper).findAllAfter(null, 2);
+        AnimePage actual = animeService.getAnimePage(null, 1);
+        assertThat(actual).isEqualTo(new AnimePage(List.of(new Anime(1, "abc", "def")), 1));
+    }
+
+    @Test
+    public void 最後のページのときに次のカーソルがnullのページを返すこと() {
+        doReturn(List.of(new Anime(2, "ghi", "jkl"))).when(animeMapper).findAllAfter(1, 11);
+        AnimePage actual = animeService.getAnimePage(1, 10);
+        assertThat(actual).isEqualTo(new AnimePage(List.of(new Anime(2, "ghi", "jkl")), null));
+    }
+
+    @Test
+    public void 取得件数が上限を超えるときに上限件数に丸めること() {
+        doReturn(List.of()).when(animeMapper).findAllAfter(null, 1001);
+        AnimePage actual = animeService.getAnimePage(null, 5000);
+        assertThat(actual).isEqualTo(new AnimePage(List.of(), null));
+    }
+
+    @Test
+    public void ジャンルと名前の前方一致で検索できること() {
+        doReturn(List.of(new Anime(1, "abc", "def"))).when(animeMapper).search("def", "ab", null, null, 11);
+        AnimePage actual = animeService.searchAnime("def", "ab", null, null, 10);
+        assertThat(actual).isEqualTo(new AnimePage(List.of(new Anime(1, "abc", "def")), null));
+    }
+
+    @Test
+    public void 名前の前方一致で検索したときに次のページのカーソルとして最後の名前とidを返すこと() {
+        doReturn(List.of(new Anime(3, "abc", "def"), new Anime(1, "abd", "def")))
+                .when(animeMapper).search(null, "ab", "aba", 5, 2);
+        AnimePage actual = animeService.searchAnime(null, "ab", "aba", 5, 1);
+        assertThat(actual).isEqualTo(new AnimePage(List.of(new Anime(3, "abc", "def")), 3, "abc"));
+    }
+
+    @Test
+    public void ジャンルだけで検索したときはidをカーソルにすること() {
+        doReturn(List.of(new Anime(3, "abc", "def"), new Anime(4, "abd", "def")))
+                .when(animeMapper).search("def", null, null, 2, 2);
+        AnimePage actual = animeService.searchAnime("def", null, "ignored", 2, 1);
+        assertThat(actual).isEqualTo(new AnimePage(List.of(new Anime(3, "abc", "def")), 3));
+    }
+
+    @Test
+    public void 名前の前方一致に含まれるワイルドカード文字がエスケープされること() {
+        doReturn(List.of()).when(animeMapper).search(null, "100\\%\\_", null, null, 11);
+        AnimePage actual = animeService.searchAnime(null, "100%_", null, null, 10);
+        assertThat(actual).isEqualTo(new AnimePage(List.of(), null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void アニメを1件ずつコンシューマに渡してエクスポートできること() {
+        doAnswer(invocation -> {
+            ResultHandler<Anime> handler = invocation.getArgument(0);
+            for (Anime anime : List.of(new Anime(1, "abc", "def"), new Anime(2, "ghi", "jkl"))) {
+                ResultContext<Anime> context = mock(ResultContext.class);
+                doReturn(anime).when(context).getResultObject();
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(animeMapper).streamAll(any());
+        List<Anime> actual = new ArrayList<>();
+        animeService.exportAnime(actual::add);
         assertThat(actual).isEqualTo(List.of(new Anime(1, "abc", "def"), new Anime(2, "ghi", "jkl")));
     }
 
@@ -49,41 +153,175 @@ class AnimeServiceTest {
                 .hasMessage("resource not found");
     }
 
+    @Test
+    public void 同じidのアニメを続けて取得したときにDBへの問い合わせが1回であること() {
+        doReturn(Optional.of(new Anime(1, "abc", "def"))).when(animeMapper).findById(1);
+        animeService.getAnime(1);
+        Anime actual = animeService.getAnime(1);
+        assertThat(actual).isEqualTo(new Anime(1, "abc", "def"));
+        verify(animeMapper, times(1)).findById(1);
+    }
+
+    @Test
+    public void 存在しないidを続けて取得したときにDBへの問い合わせが1回であること() {
+        doReturn(Optional.empty()).when(animeMapper).findById(1);
+        assertThatThrownBy(() -> animeService.getAnime(1)).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> animeService.getAnime(1)).isInstanceOf(ResourceNotFoundException.class);
+        verify(animeMapper, times(1)).findById(1);
+    }
+
+    @Test
+    public void バッチローダーが有効なときにid単位の取得をバッチローダー経由で行うこと() {
+        doReturn(true).when(batchLoader).isEnabled();
+        doReturn(Optional.of(new Anime(1, "abc", "def"))).when(batchLoader).get(1);
+        Anime actual = animeService.getAnime(1);
+        assertThat(actual).isEqualTo(new Anime(1, "abc", "def"));
+        verify(animeMapper, never()).findById(any());
+    }
+
+    @Test
+    public void バッチローダーの取得に失敗したときに元の例外をthrowすること() {
+        doReturn(true).when(batchLoader).isEnabled();
+        doThrow(new IllegalStateException("db down")).when(batchLoader).get(1);
+        assertThatThrownBy(() -> animeService.getAnime(1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("db down");
+    }
+
+    @Test
+    public void 複数のidを指定したときに要求した順序で返し存在しないidを別に返すこと() {
+        doReturn(List.of(new Anime(1, "abc", "def"), new Anime(3, "ghi", "jkl"))).when(animeMapper).findByIds(anyCollection());
+        AnimeMultiGet actual = animeService.getAnimeList(List.of(3, 2, 1, 3));
+        assertThat(actual).isEqualTo(new AnimeMultiGet(
+                List.of(new Anime(3, "ghi", "jkl"), new Anime(1, "abc", "def")), List.of(2)));
+        verify(animeMapper, times(1)).findByIds(anyCollection());
+    }
+
+    @Test
+    public void 複数のidを指定したときにキャッシュ済みのidはDBに問い合わせないこと() {
+        doReturn(Optional.of(new Anime(1, "abc", "def"))).when(animeMapper).findById(1);
+        doReturn(List.of(new Anime(2, "ghi", "jkl"))).when(animeMapper).findByIds(List.of(2));
+        animeService.getAnime(1);
+        AnimeMultiGet actual = animeService.getAnimeList(List.of(1, 2));
+        assertThat(actual).isEqualTo(new AnimeMultiGet(
+                List.of(new Anime(1, "abc", "def"), new Anime(2, "ghi", "jkl")), List.of()));
+    }
+
+    @Test
+    public void 複数のidが問い合わせ1回分の上限を超えるときに分割して取得すること() {
+        List<Integer> ids = IntStream.rangeClosed(1, AnimeService.SELECT_CHUNK_SIZE + 1).boxed().toList();
+        doReturn(List.of()).when(animeMapper).findByIds(anyCollection());
+        AnimeMultiGet actual = animeService.getAnimeList(ids);
+        assertThat(actual.getMissingIds()).isEqualTo(ids);
+        verify(animeMapper, times(2)).findByIds(anyCollection());
+    }
+
+    @Test
+    public void アニメを更新したときにキャッシュが破棄され更新後のアニメを返すこと() {
+        doReturn(Optional.of(new Anime(1, "abc", "def")))
+                .doReturn(Optional.of(new Anime(1, "Your Name", "Romantic Fantasy")))
+                .when(animeMapper).findById(1);
+        doReturn(1).when(animeMapper).updateAnime(new Anime(1, "Your Name", "Romantic Fantasy"));
+        animeService.getAnime(1);
+        animeService.updateAnime(1, "Your Name", "Romantic Fantasy", null);
+        Anime actual = animeService.getAnime(1);
+        assertThat(actual).isEqualTo(new Anime(1, "Your Name", "Romantic Fantasy"));
+        verify(animeCache).invalidate(1);
+    }
+
+    @Test
+    public void 他のノードでの変更を受けてキャッシュを破棄したときに次の取得でDBに問い合わせること() {
+        doReturn(Optional.of(new Anime(1, "abc", "def")))
+                .doReturn(Optional.of(new Anime(1, "Your Name", "Romantic Fantasy")))
+                .when(animeMapper).findById(1);
+        animeService.getAnime(1);
+        animeService.evict(1);
+        Anime actual = animeService.getAnime(1);
+        assertThat(actual).isEqualTo(new Anime(1, "Your Name", "Romantic Fantasy"));
+        verify(eventPublisher, never()).publishEvent(any(AnimeChangedEvent.class));
+    }
+
     @Test
     public void アニメの登録ができること() {
         doNothing().when(animeMapper).createAnime(new Anime("name", "genre"));
         animeService.registerAnime("name", "genre");
         verify(animeMapper).createAnime(new Anime("name", "genre"));
+        verify(eventPublisher).publishEvent(AnimeChangedEvent.created(new Anime("name", "genre")));
+    }
+
+    @Test
+    public void 複数のアニメを一定件数ごとにまとめて登録できること() {
+        List<Anime> animeList = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            animeList.add(new Anime("name" + i, "genre"));
+        }
+        doReturn(2510L).when(animeOutboxMapper).findReservedSeq();
+        List<Integer> actual = animeService.registerAnimeList(animeList);
+        assertThat(actual).hasSize(2500);
+        verify(animeMapper).createAnimeList(animeList.subList(0, 1000));
+        verify(animeMapper).createAnimeList(animeList.subList(1000, 2000));
+        verify(animeMapper).createAnimeList(animeList.subList(2000, 2500));
+        verify(animeOutboxMapper).reserveSeq(2500);
+        verify(animeOutboxMapper, times(3)).insertAll(any());
+        verify(animeOutboxMapper).insertAll(argThat(changes -> changes.get(0).getSeq() == 11L && changes.size() == 1000));
     }
 
     @Test
     public void アニメが更新できること() {
-        doReturn(Optional.of(new Anime(1, "abc", "def"))).when(animeMapper).findById(1);
-        animeService.updateAnime(1, "Your Name", "Romantic Fantasy");
+        doReturn(1).when(animeMapper).updateAnime(new Anime(1, "Your Name", "Romantic Fantasy"));
+        doReturn(8L).when(animeOutboxMapper).findReservedSeq();
+        animeService.updateAnime(1, "Your Name", "Romantic Fantasy", null);
         verify(animeMapper).updateAnime(new Anime(1, "Your Name", "Romantic Fantasy"));
+        verify(animeMapper, never()).findById(1);
+        verify(eventPublisher).publishEvent(AnimeChangedEvent.updated(new Anime(1, "Your Name", "Romantic Fantasy")));
+        verify(animeOutboxMapper).reserveSeq(1);
+        verify(animeOutboxMapper).insertAll(List.of(new AnimeChange(8L, "UPDATED", 1, "Your Name", "Romantic Fantasy", null)));
     }
 
     @Test
     public void 更新対象のアニメが存在しないときに例外をthrowすること() {
-        doReturn(Optional.empty()).when(animeMapper).findById(1);
-        assertThatThrownBy(() -> animeService.updateAnime(1,"Your Name", "Romantic Fantasy"))
+        doReturn(0).when(animeMapper).updateAnime(new Anime(1, "Your Name", "Romantic Fantasy"));
+        assertThatThrownBy(() -> animeService.updateAnime(1,"Your Name", "Romantic Fantasy", null))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("resource not found");
     }
 
+    @Test
+    public void 指定したバージョンと一致しないときにPreconditionFailedExceptionをthrowすること() {
+        doReturn(0).when(animeMapper).updateAnime(new Anime(1, "Your Name", "Romantic Fantasy"));
+        doReturn(Optional.of(new Anime(1, "Your Name", "Romantic Fantasy", 4))).when(animeMapper).findById(1);
+        assertThatThrownBy(() -> animeService.updateAnime(1, "Your Name", "Romantic Fantasy", 3))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage("version does not match");
+        verify(eventPublisher, never()).publishEvent(any(AnimeChangedEvent.class));
+    }
+
+    @Test
+    public void バージョンを指定した更新で対象が存在しないときにResourceNotFoundExceptionをthrowすること() {
+        doReturn(0).when(animeMapper).updateAnime(new Anime(1, "Your Name", "Romantic Fantasy"));
+        doReturn(Optional.empty()).when(animeMapper).findById(1);
+        assertThatThrownBy(() -> animeService.updateAnime(1, "Your Name", "Romantic Fantasy", 3))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
     @Test
     public void アニメが削除できること() {
-        doReturn(Optional.of(new Anime(1, "abc", "def"))).when(animeMapper).findById(1);
+        doReturn(1).when(animeMapper).deleteAnime(1);
+        doReturn(8L).when(animeOutboxMapper).findReservedSeq();
         animeService.deleteAnime(1);
         verify(animeMapper).deleteAnime(1);
+        verify(animeMapper, never()).findById(1);
+        verify(eventPublisher).publishEvent(AnimeChangedEvent.deleted(1));
+        verify(animeOutboxMapper).insertAll(List.of(new AnimeChange(8L, "DELETED", 1, null, null, null)));
     }
 
     @Test
     public void 削除対象のアニメが存在しないときに例外をthrowすること() {
-        doReturn(Optional.empty()).when(animeMapper).findById(1);
+        doReturn(0).when(animeMapper).deleteAnime(1);
         assertThatThrownBy(() -> animeService.deleteAnime(1))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("resource not found");
+        verify(eventPublisher, never()).publishEvent(any(AnimeChangedEvent.class));
     }
 
 }
@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+import com.example.demo.mapper.AnimeMapper;
+import com.example.demo.mapper.AnimeOutboxMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AnimeStartupScanTest {
+
+    AnimeMapper animeMapper = mock(AnimeMapper.class);
+
+    AnimeOutboxMapper animeOutboxMapper = mock(AnimeOutboxMapper.class);
+
+    ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    AnimeVersions animeVersions = new AnimeVersions();
+
+    AnimeSearchService animeSearchService = new AnimeSearchService();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 全件を1回だけ読んでバージョンと検索のインデックスを作ること() {
+        doAnswer(invocation -> {
+            ResultHandler<Anime> handler = invocation.getArgument(0);
+            ResultContext<Anime> context = mock(ResultContext.class);
+            doReturn(new Anime(1, "Your Name", "Romantic Fantasy", 3)).when(context).getResultObject();
+            handler.handleResult(context);
+            return null;
+        }).when(animeMapper).streamAll(any());
+
+        new AnimeStartupScan(animeMapper, animeOutboxMapper, animeVersions, animeSearchService, eventPublisher).scan();
+
+        verify(animeMapper, times(1)).streamAll(any());
+        assertThat(animeVersions.etag(1)).isEqualTo("\"1-3\"");
+        assertThat(animeSearchService.searchAnime("Your", 10))
+                .isEqualTo(List.of(new Anime(1, "Your Name", "Romantic Fantasy", 3)));
+    }
+
+    @Test
+    public void 読み込む前にコミット済みだった変更履歴のseqを読み込み後に通知すること() {
+        doReturn(7L).when(animeOutboxMapper).findLastSeq();
+
+        new AnimeStartupScan(animeMapper, animeOutboxMapper, animeVersions, animeSearchService, eventPublisher).start();
+
+        InOrder inOrder = inOrder(animeOutboxMapper, animeMapper, eventPublisher);
+        inOrder.verify(animeOutboxMapper).findLastSeq();
+        inOrder.verify(animeMapper).streamAll(any());
+        inOrder.verify(eventPublisher).publishEvent(new AnimeStartupScannedEvent(7));
+    }
+}
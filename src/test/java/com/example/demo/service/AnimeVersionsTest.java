@@ -0,0 +1,76 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnimeVersionsTest {
+
+    AnimeVersions animeVersions = new AnimeVersions();
+
+    @BeforeEach
+    void setUp() {
+        animeVersions.record(new Anime(1, "Your Name", "Romantic Fantasy", 3));
+    }
+
+    @Test
+    public void 起動時に読み込んだバージョンからETagを返すこと() {
+        assertThat(animeVersions.etag(1)).isEqualTo("\"1-3\"");
+        assertThat(animeVersions.etag(2)).isNull();
+    }
+
+    @Test
+    public void 更新されたときに行のETagが変わること() {
+        animeVersions.onAnimeChanged(AnimeChangedEvent.updated(new Anime(1, "君の名は。", "Romantic Fantasy", 4)));
+        assertThat(animeVersions.etag(1)).isEqualTo("\"1-4\"");
+    }
+
+    @Test
+    public void 一覧のETagは変更履歴のseqだけで決まること() {
+        assertThat(AnimeVersions.listEtag(42)).isEqualTo("\"list-42\"");
+    }
+
+    @Test
+    public void 古いバージョンの更新通知が後から届いてもバージョンが戻らないこと() {
+        animeVersions.onAnimeChanged(AnimeChangedEvent.updated(new Anime(1, "Your Name", "Romantic Fantasy", 5)));
+        animeVersions.onAnimeChanged(AnimeChangedEvent.updated(new Anime(1, "Your Name", "Romantic Fantasy", 4)));
+        assertThat(animeVersions.etag(1)).isEqualTo("\"1-5\"");
+    }
+
+    @Test
+    public void 登録されたアニメはバージョン1になり削除されたアニメはETagを返さないこと() {
+        animeVersions.onAnimeChanged(AnimeChangedEvent.created(new Anime(2, "Kill la Kill", "Action")));
+        assertThat(animeVersions.etag(2)).isEqualTo("\"2-1\"");
+        animeVersions.onAnimeChanged(AnimeChangedEvent.deleted(1));
+        assertThat(animeVersions.etag(1)).isNull();
+    }
+
+    @Test
+    public void 削除した行には後から届いた古い更新を反映しないこと() {
+        animeVersions.onAnimeChanged(AnimeChangedEvent.deleted(1));
+        animeVersions.record(new Anime(1, "Your Name", "Romantic Fantasy", 4));
+
+        assertThat(animeVersions.etag(1)).isNull();
+        assertThat(animeVersions.isApplied(AnimeChangedEvent.Type.UPDATED, 1, 4)).isTrue();
+        assertThat(animeVersions.isApplied(AnimeChangedEvent.Type.DELETED, 1, null)).isTrue();
+    }
+
+    @Test
+    public void 反映済みのバージョンより新しい変更だけを未反映とすること() {
+        assertThat(animeVersions.isApplied(AnimeChangedEvent.Type.UPDATED, 1, 3)).isTrue();
+        assertThat(animeVersions.isApplied(AnimeChangedEvent.Type.UPDATED, 1, 4)).isFalse();
+        assertThat(animeVersions.isApplied(AnimeChangedEvent.Type.DELETED, 1, null)).isFalse();
+        assertThat(animeVersions.isApplied(AnimeChangedEvent.Type.CREATED, 2, 1)).isFalse();
+    }
+
+    @Test
+    public void 形式ごとのETagを作りIfMatchでは接尾辞を無視してバージョンを取り出すこと() {
+        assertThat(AnimeVersions.etag("\"1-3\"", null)).isEqualTo("\"1-3\"");
+        assertThat(AnimeVersions.etag("\"1-3\"", "cbor")).isEqualTo("\"1-3-cbor\"");
+        assertThat(AnimeVersions.versionOf(1, "\"1-3-cbor\"")).isEqualTo(3);
+        assertThat(AnimeVersions.versionOf(1, "\"1-3\"")).isEqualTo(3);
+        assertThat(AnimeVersions.versionOf(2, "\"1-3\"")).isNull();
+    }
+}
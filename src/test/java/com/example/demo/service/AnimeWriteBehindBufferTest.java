@@ -0,0 +1,131 @@
+package com.example.demo.service;
+
+import com.example.demo.config.AnimeWriteBehindProperties;
+import com.example.demo.entity.Anime;
+import com.example.demo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AnimeWriteBehindBufferTest {
+
+    AnimeService animeService = mock(AnimeService.class);
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    List<List<Anime>> batches = new ArrayList<>();
+
+    AnimeWriteBehindBuffer buffer(int capacity, int batchSize, Duration flushInterval) {
+        AnimeWriteBehindProperties properties = new AnimeWriteBehindProperties();
+        properties.setEnabled(true);
+        properties.setCapacity(capacity);
+        properties.setBatchSize(batchSize);
+        properties.setFlushInterval(flushInterval);
+        doAnswer(invocation -> {
+            synchronized (batches) {
+                batches.add(invocation.getArgument(0));
+            }
+            return List.of();
+        }).when(animeService).registerAnimeList(any());
+        return new AnimeWriteBehindBuffer(animeService, properties, meterRegistry);
+    }
+
+    @Test
+    public void 件数が閾値に達したときにまとめて登録すること() {
+        AnimeWriteBehindBuffer buffer = buffer(64, 2, Duration.ofMinutes(1));
+        buffer.start();
+        buffer.offer(new Anime("a", "genre"));
+        buffer.offer(new Anime("b", "genre"));
+
+        verify(animeService, timeout(1000)).registerAnimeList(List.of(new Anime("a", "genre"), new Anime("b", "genre")));
+        buffer.stop();
+        assertThat(meterRegistry.get("anime.write_behind.batch.size").summary().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("anime.write_behind.flush").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void 経過時間が閾値に達したときに件数が満たなくても登録すること() {
+        AnimeWriteBehindBuffer buffer = buffer(64, 100, Duration.ofMillis(10));
+        buffer.start();
+        buffer.offer(new Anime("a", "genre"));
+
+        verify(animeService, timeout(1000)).registerAnimeList(List.of(new Anime("a", "genre")));
+        buffer.stop();
+    }
+
+    @Test
+    public void 停止時にバッファに残っている分をすべて登録すること() {
+        AnimeWriteBehindBuffer buffer = buffer(64, 100, Duration.ofMinutes(1));
+        buffer.start();
+        for (int i = 0; i < 10; i++) {
+            buffer.offer(new Anime("name" + i, "genre"));
+        }
+
+        buffer.stop();
+
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(10);
+        assertThat(buffer.isRunning()).isFalse();
+    }
+
+    @Test
+    public void バッファが満杯のときと停止中は受け付けないこと() throws InterruptedException {
+        CountDownLatch flushing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            flushing.await();
+            return List.of();
+        }).when(animeService).registerAnimeList(any());
+        AnimeWriteBehindProperties properties = new AnimeWriteBehindProperties();
+        properties.setEnabled(true);
+        properties.setCapacity(2);
+        properties.setBatchSize(1);
+        AnimeWriteBehindBuffer buffer = new AnimeWriteBehindBuffer(animeService, properties, meterRegistry);
+
+        assertThatThrownBy(() -> buffer.offer(new Anime("a", "genre"))).isInstanceOf(ServiceUnavailableException.class);
+
+        buffer.start();
+        assertThat(buffer.offer(new Anime("a", "genre"))).isTrue();
+        verify(animeService, timeout(1000)).registerAnimeList(List.of(new Anime("a", "genre")));
+        assertThat(buffer.offer(new Anime("b", "genre"))).isTrue();
+        assertThat(buffer.offer(new Anime("c", "genre"))).isTrue();
+        assertThat(buffer.offer(new Anime("d", "genre"))).isFalse();
+        assertThat(meterRegistry.get("anime.write_behind.queue.depth").gauge().value()).isEqualTo(2);
+
+        flushing.countDown();
+        buffer.stop();
+        assertThatThrownBy(() -> buffer.offer(new Anime("e", "genre"))).isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    public void 一括登録が再試行しても失敗するときは1件ずつ登録し失敗した行だけ捨てること() {
+        AnimeWriteBehindProperties properties = new AnimeWriteBehindProperties();
+        properties.setMaxAttempts(2);
+        properties.setFlushInterval(Duration.ofMillis(1));
+        doThrow(new DataIntegrityViolationException("duplicate")).when(animeService).registerAnimeList(any());
+        doThrow(new DataIntegrityViolationException("duplicate")).when(animeService).registerAnime("b", "genre");
+        AnimeWriteBehindBuffer buffer = new AnimeWriteBehindBuffer(animeService, properties, meterRegistry);
+        List<Anime> batch = new ArrayList<>(List.of(new Anime("a", "genre"), new Anime("b", "genre"), new Anime("c", "genre")));
+
+        buffer.flush(batch);
+
+        verify(animeService, times(2)).registerAnimeList(any());
+        verify(animeService).registerAnime("a", "genre");
+        verify(animeService).registerAnime("c", "genre");
+        assertThat(batch).isEmpty();
+        assertThat(meterRegistry.get("anime.write_behind.dead_letter").counter().count()).isEqualTo(1);
+    }
+}
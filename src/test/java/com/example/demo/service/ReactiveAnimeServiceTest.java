@@ -0,0 +1,135 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Anime;
+import com.example.demo.entity.AnimeChange;
+import com.example.demo.exception.PreconditionFailedException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.ReactiveAnimeOutboxRepository;
+import com.example.demo.repository.ReactiveAnimeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveAnimeServiceTest {
+
+    @InjectMocks
+    ReactiveAnimeService animeService;
+
+    @Mock
+    ReactiveAnimeRepository animeRepository;
+
+    @Mock
+    ReactiveAnimeOutboxRepository outboxRepository;
+
+    @Mock
+    TransactionalOperator transactionalOperator;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        lenient().doAnswer(invocation -> invocation.getArgument(0)).when(transactionalOperator).transactional(any(Mono.class));
+    }
+
+    @Test
+    public void アニメが取得できるときに1件アニメを返すこと() {
+        doReturn(Mono.just(new Anime(1, "abc", "def"))).when(animeRepository).findById(1);
+        StepVerifier.create(animeService.getAnime(1))
+                .expectNext(new Anime(1, "abc", "def"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void アニメが取得できないときに例外を通知すること() {
+        doReturn(Mono.empty()).when(animeRepository).findById(1);
+        StepVerifier.create(animeService.getAnime(1))
+                .expectErrorSatisfies(e -> assertThat(e)
+                        .isInstanceOf(ResourceNotFoundException.class)
+                        .hasMessage("resource not found"))
+                .verify();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 登録したときに同じトランザクションで変更履歴を追記すること() {
+        doReturn(Mono.just(5)).when(animeRepository).createAnime(new Anime("Your Name", "Romantic Fantasy"));
+        doReturn(Mono.just(10L)).when(outboxRepository).reserveSeq(1);
+        doReturn(Mono.empty()).when(outboxRepository).insert(new AnimeChange(10L, "CREATED", 5, "Your Name", "Romantic Fantasy", null));
+
+        StepVerifier.create(animeService.registerAnime("Your Name", "Romantic Fantasy"))
+                .verifyComplete();
+
+        verify(outboxRepository).insert(new AnimeChange(10L, "CREATED", 5, "Your Name", "Romantic Fantasy", null));
+        verify(transactionalOperator).transactional(any(Mono.class));
+    }
+
+    @Test
+    public void 更新したときに更新後のバージョンで変更履歴を追記すること() {
+        doReturn(Mono.just(1)).when(animeRepository).updateAnime(new Anime(1, "Your Name", "Romantic Fantasy", 3));
+        doReturn(Mono.just(4)).when(animeRepository).findUpdatedVersion();
+        doReturn(Mono.just(11L)).when(outboxRepository).reserveSeq(1);
+        doReturn(Mono.empty()).when(outboxRepository).insert(new AnimeChange(11L, "UPDATED", 1, "Your Name", "Romantic Fantasy", 4));
+
+        StepVerifier.create(animeService.updateAnime(1, "Your Name", "Romantic Fantasy", 3))
+                .verifyComplete();
+
+        verify(outboxRepository).insert(new AnimeChange(11L, "UPDATED", 1, "Your Name", "Romantic Fantasy", 4));
+    }
+
+    @Test
+    public void 更新対象のアニメが存在しないときに例外を通知すること() {
+        doReturn(Mono.just(0)).when(animeRepository).updateAnime(new Anime(1, "Your Name", "Romantic Fantasy"));
+        StepVerifier.create(animeService.updateAnime(1, "Your Name", "Romantic Fantasy", null))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+
+        verify(outboxRepository, never()).reserveSeq(anyInt());
+    }
+
+    @Test
+    public void バージョンが一致しないときに例外を通知すること() {
+        doReturn(Mono.just(0)).when(animeRepository).updateAnime(new Anime(1, "Your Name", "Romantic Fantasy"));
+        doReturn(Mono.just(new Anime(1, "abc", "def", 4))).when(animeRepository).findById(1);
+        StepVerifier.create(animeService.updateAnime(1, "Your Name", "Romantic Fantasy", 3))
+                .expectError(PreconditionFailedException.class)
+                .verify();
+
+        verify(outboxRepository, never()).reserveSeq(anyInt());
+    }
+
+    @Test
+    public void アニメが削除できること() {
+        doReturn(Mono.just(1)).when(animeRepository).deleteAnime(1);
+        doReturn(Mono.just(12L)).when(outboxRepository).reserveSeq(1);
+        doReturn(Mono.empty()).when(outboxRepository).insert(new AnimeChange(12L, "DELETED", 1, null, null, null));
+
+        StepVerifier.create(animeService.deleteAnime(1))
+                .verifyComplete();
+
+        verify(outboxRepository).insert(new AnimeChange(12L, "DELETED", 1, null, null, null));
+    }
+
+    @Test
+    public void 削除対象のアニメが存在しないときに例外を通知すること() {
+        doReturn(Mono.just(0)).when(animeRepository).deleteAnime(1);
+        StepVerifier.create(animeService.deleteAnime(1))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+
+        verify(outboxRepository, never()).reserveSeq(anyInt());
+    }
+}
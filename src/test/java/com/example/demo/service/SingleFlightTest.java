@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    ExecutorService executor = Executors.newCachedThreadPool();
+
+    AtomicInteger loads = new AtomicInteger();
+
+    CountDownLatch loading = new CountDownLatch(1);
+
+    CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    // releaseされるまで戻らない読み込み
+    String blockingLoad() {
+        loads.incrementAndGet();
+        loading.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "value";
+    }
+
+    // 進行中の読み込みを待ち始める（TIMED_WAITINGになる）まで待ってから返す
+    Future<String> follower(SingleFlight<Integer, String> singleFlight) throws InterruptedException {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        Future<String> future = executor.submit(() -> {
+            thread.set(Thread.currentThread());
+            return singleFlight.execute(1, () -> "follower");
+        });
+        while (thread.get() == null || thread.get().getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        return future;
+    }
+
+    @Test
+    public void 同じキーの読み込みが進行中のときに結果を共有し読み込みが1回であること() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        Future<String> leader = executor.submit(() -> singleFlight.execute(1, this::blockingLoad));
+        loading.await();
+        Future<String> follower = follower(singleFlight);
+
+        release.countDown();
+
+        assertThat(leader.get(1, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(follower.get(1, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void 読み込みが終わった後の呼び出しは新たに読み込むこと() {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        release.countDown();
+        singleFlight.execute(1, this::blockingLoad);
+        singleFlight.execute(1, this::blockingLoad);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void 読み込みに失敗したときに待っていた呼び出しにも同じ例外をthrowすること() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        Future<String> leader = executor.submit(() -> singleFlight.execute(1, () -> {
+            blockingLoad();
+            throw new IllegalStateException("db down");
+        }));
+        loading.await();
+        Future<String> follower = follower(singleFlight);
+
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void 待ち時間がtimeoutを超えたときにServiceUnavailableExceptionをthrowすること() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>(Duration.ofMillis(10));
+        executor.submit(() -> singleFlight.execute(1, this::blockingLoad));
+        loading.await();
+
+        assertThatThrownBy(() -> singleFlight.execute(1, this::blockingLoad))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    public void forgetした後の呼び出しは進行中の読み込みを待たずに読み込むこと() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        executor.submit(() -> singleFlight.execute(1, this::blockingLoad));
+        loading.await();
+
+        singleFlight.forget(1);
+
+        assertThat(singleFlight.execute(1, () -> "fresh")).isEqualTo("fresh");
+    }
+}